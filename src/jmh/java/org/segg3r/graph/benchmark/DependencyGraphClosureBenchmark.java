@@ -0,0 +1,56 @@
+package org.segg3r.graph.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.segg3r.graph.DependencyGraph;
+import org.segg3r.graph.DependencyGraphElement;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Closures are not retained, every call walks the graph iteratively, so one graph serves all invocations.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DependencyGraphClosureBenchmark {
+
+	@Param({"CHAIN", "FAN", "DIAMONDS", "RANDOM"})
+	private GraphShape shape;
+
+	@Param({"100", "1000", "100000", "1000000"})
+	private int size;
+
+	private DependencyGraphElement<Integer> first;
+	private DependencyGraphElement<Integer> last;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		DependencyGraph<Integer> graph = shape.edges(size).toBuiltGraph(size);
+		first = graph.find(0).get();
+		last = graph.find(size - 1).get();
+	}
+
+	@Benchmark
+	public Set<DependencyGraphElement<Integer>> getDependents() {
+		return first.getDependents();
+	}
+
+	@Benchmark
+	public Set<DependencyGraphElement<Integer>> getDependencies() {
+		return last.getDependencies();
+	}
+
+}
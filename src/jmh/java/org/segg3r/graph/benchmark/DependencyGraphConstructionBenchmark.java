@@ -0,0 +1,76 @@
+package org.segg3r.graph.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.segg3r.graph.DependencyGraph;
+import org.segg3r.graph.FrozenDependencyGraph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.segg3r.graph.DependencyGraphEntityCodec.integerCodec;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DependencyGraphConstructionBenchmark {
+
+	@Param({"CHAIN", "FAN", "DIAMONDS", "RANDOM"})
+	private GraphShape shape;
+
+	@Param({"100", "10000", "1000000"})
+	private int size;
+
+	private GraphShape.Edges edges;
+	private DependencyGraph<Integer> graph;
+	private Path file;
+
+	@Setup
+	public void setUp() throws IOException {
+		edges = shape.edges(size);
+		graph = edges.toBuiltGraph(size);
+		file = Files.createTempFile("dependency-graph", ".bin");
+		graph.freeze().writeTo(file, integerCodec());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public DependencyGraph<Integer> addDependency() {
+		return edges.toGraph(size);
+	}
+
+	@Benchmark
+	public DependencyGraph<Integer> builder() {
+		return edges.toBuiltGraph(size);
+	}
+
+	@Benchmark
+	public FrozenDependencyGraph<Integer> freeze() {
+		return graph.freeze();
+	}
+
+	@Benchmark
+	public FrozenDependencyGraph<Integer> load() {
+		return FrozenDependencyGraph.load(file, integerCodec());
+	}
+
+}
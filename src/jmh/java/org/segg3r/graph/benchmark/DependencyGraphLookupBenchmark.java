@@ -0,0 +1,77 @@
+package org.segg3r.graph.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.segg3r.graph.DependencyGraph;
+import org.segg3r.graph.DependencyGraphElement;
+import org.segg3r.graph.FrozenDependencyGraph;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DependencyGraphLookupBenchmark {
+
+	@Param({"CHAIN", "FAN", "DIAMONDS", "RANDOM"})
+	private GraphShape shape;
+
+	@Param({"100", "10000", "1000000"})
+	private int size;
+
+	private DependencyGraph<Integer> graph;
+	private FrozenDependencyGraph<Integer> frozenGraph;
+	private int[] probes;
+	private int probe = 0;
+
+	@Setup
+	public void setUp() {
+		graph = shape.edges(size).toBuiltGraph(size);
+		frozenGraph = graph.freeze();
+
+		Random random = new Random(size);
+		probes = new int[1024];
+		for (int i = 0; i < probes.length; i++) probes[i] = random.nextInt(size);
+	}
+
+	@Benchmark
+	public Optional<DependencyGraphElement<Integer>> find() {
+		return graph.find(nextProbe());
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return graph.contains(nextProbe());
+	}
+
+	@Benchmark
+	public boolean frozenDependsOn() {
+		return frozenGraph.dependsOn(nextProbe(), nextProbe());
+	}
+
+	@Benchmark
+	public Set<Integer> frozenGetDependents() {
+		return frozenGraph.getDependents(nextProbe());
+	}
+
+	private int nextProbe() {
+		probe = (probe + 1) & (probes.length - 1);
+		return probes[probe];
+	}
+
+}
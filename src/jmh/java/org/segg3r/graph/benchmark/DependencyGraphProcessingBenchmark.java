@@ -0,0 +1,66 @@
+package org.segg3r.graph.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.segg3r.graph.DependencyGraph;
+import org.segg3r.graph.FrozenDependencyGraph;
+import org.segg3r.graph.execution.DependencyGraphProcessingCallback;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.segg3r.graph.execution.DependencyGraphExecutors.asyncForkJoinPool;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DependencyGraphProcessingBenchmark {
+
+	private static final DependencyGraphProcessingCallback<Integer> NO_OP = new DependencyGraphProcessingCallback<Integer>() {};
+
+	@Param({"CHAIN", "FAN", "DIAMONDS", "RANDOM"})
+	private GraphShape shape;
+
+	@Param({"100", "10000", "1000000"})
+	private int size;
+
+	private DependencyGraph<Integer> graph;
+	private FrozenDependencyGraph<Integer> frozenGraph;
+	private ExecutorService executor;
+
+	@Setup
+	public void setUp() {
+		graph = shape.edges(size).toBuiltGraph(size);
+		frozenGraph = graph.freeze();
+		executor = asyncForkJoinPool(Runtime.getRuntime().availableProcessors());
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public void process() {
+		graph.process(NO_OP, executor);
+	}
+
+	@Benchmark
+	public void processFrozen() {
+		frozenGraph.process(NO_OP, executor);
+	}
+
+}
@@ -0,0 +1,108 @@
+package org.segg3r.graph.benchmark;
+
+import org.segg3r.graph.DependencyGraph;
+import org.segg3r.graph.DependencyGraphBuilder;
+
+import java.util.Random;
+
+public enum GraphShape {
+
+	CHAIN {
+		@Override
+		public Edges edges(int size) {
+			Edges edges = new Edges(size - 1);
+			for (int node = 1; node < size; node++) edges.add(node, node - 1);
+			return edges;
+		}
+	},
+
+	FAN {
+		@Override
+		public Edges edges(int size) {
+			int sink = size - 1;
+			Edges edges = new Edges(2 * (size - 2));
+			for (int node = 1; node < sink; node++) {
+				edges.add(node, 0);
+				edges.add(sink, node);
+			}
+			return edges;
+		}
+	},
+
+	DIAMONDS {
+		@Override
+		public Edges edges(int size) {
+			Edges edges = new Edges(size * 4 / 3 + 4);
+			for (int top = 0; top + 3 < size; top += 3) {
+				edges.add(top + 1, top);
+				edges.add(top + 2, top);
+				edges.add(top + 3, top + 1);
+				edges.add(top + 3, top + 2);
+			}
+			return edges;
+		}
+	},
+
+	RANDOM {
+		private static final int MAX_DEPENDENCIES = 3;
+
+		@Override
+		public Edges edges(int size) {
+			Random random = new Random(size);
+			Edges edges = new Edges(size * MAX_DEPENDENCIES);
+			for (int node = 1; node < size; node++) {
+				int dependencies = 1 + random.nextInt(Math.min(node, MAX_DEPENDENCIES));
+				for (int i = 0; i < dependencies; i++) edges.add(node, random.nextInt(node));
+			}
+			return edges;
+		}
+	};
+
+	public abstract Edges edges(int size);
+
+	public static final class Edges {
+
+		private final int[] dependents;
+		private final int[] dependencies;
+		private int count = 0;
+
+		private Edges(int capacity) {
+			this.dependents = new int[Math.max(capacity, 0)];
+			this.dependencies = new int[Math.max(capacity, 0)];
+		}
+
+		private void add(int dependent, int dependency) {
+			dependents[count] = dependent;
+			dependencies[count] = dependency;
+			count++;
+		}
+
+		public DependencyGraph<Integer> toGraph(int size) {
+			DependencyGraph<Integer> graph = DependencyGraph.emptyGraph();
+			for (int node = 0; node < size; node++) graph.add(node);
+			for (int i = 0; i < count; i++) graph.addDependency(dependents[i], dependencies[i]);
+			return graph;
+		}
+
+		public DependencyGraph<Integer> toBuiltGraph(int size) {
+			DependencyGraphBuilder<Integer> builder = DependencyGraph.builder();
+			for (int node = 0; node < size; node++) builder.add(node);
+			for (int i = 0; i < count; i++) builder.addDependency(dependents[i], dependencies[i]);
+			return builder.build();
+		}
+
+		public int count() {
+			return count;
+		}
+
+		public int dependent(int index) {
+			return dependents[index];
+		}
+
+		public int dependency(int index) {
+			return dependencies[index];
+		}
+
+	}
+
+}
@@ -1,15 +1,27 @@
 package org.segg3r.graph;
 
-import com.google.common.collect.Lists;
-import org.segg3r.graph.execution.DependencyGraphProcessingContext;
+import com.google.common.collect.Maps;
+import org.segg3r.graph.execution.DependencyGraphAsyncProcessingCallback;
+import org.segg3r.graph.execution.DependencyGraphBatchProcessingCallback;
+import org.segg3r.graph.execution.DependencyGraphDynamicProcessing;
+import org.segg3r.graph.execution.DependencyGraphDynamicProcessingCallback;
 import org.segg3r.graph.execution.DependencyGraphProcessingCallback;
-import org.segg3r.graph.execution.step.DependencyGraphProcessingStep;
-import org.segg3r.graph.execution.step.SingleDependencyGraphProcessingStep;
-
+import org.segg3r.graph.execution.DependencyGraphProcessingOptions;
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+import org.segg3r.graph.execution.journal.DependencyGraphJournal;
+import org.segg3r.graph.execution.value.DependencyGraphValueCache;
+import org.segg3r.graph.execution.value.DependencyGraphValueCallback;
+import org.segg3r.graph.execution.value.DependencyGraphValueResult;
+
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static org.segg3r.graph.DependencyGraphElement.*;
+import static org.segg3r.graph.execution.DependencyGraphDynamicProcessing.startDynamicProcessing;
 
 public class DependencyGraph<T> {
 
@@ -17,29 +29,108 @@ public class DependencyGraph<T> {
 		return new DependencyGraph<>(emptyElement());
 	}
 
-	private DependencyGraphElement<T> head;
+	public static <TT> DependencyGraphBuilder<TT> builder() {
+		return new DependencyGraphBuilder<>();
+	}
+
+	private final DependencyGraphElement<T> head;
+	private final Map<T, DependencyGraphElement<T>> elements;
 
 	private DependencyGraph(DependencyGraphElement<T> head) {
+		this(head, Maps.newHashMap());
+	}
+
+	DependencyGraph(DependencyGraphElement<T> head, Map<T, DependencyGraphElement<T>> elements) {
 		this.head = head;
+		this.elements = elements;
+	}
+
+	public DependencyGraphProcessingResult<T> process(DependencyGraphProcessingCallback<T> callback) {
+		return freeze().process(callback);
+	}
+
+	public DependencyGraphProcessingResult<T> process(DependencyGraphProcessingCallback<T> callback, Executor executor) {
+		return freeze().process(callback, executor);
+	}
+
+	public DependencyGraphProcessingResult<T> process(DependencyGraphProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		return freeze().process(callback, options);
+	}
+
+	public DependencyGraphProcessingResult<T> process(Set<? extends T> targets, DependencyGraphProcessingCallback<T> callback) {
+		return freeze().process(targets, callback);
+	}
+
+	public DependencyGraphProcessingResult<T> process(Set<? extends T> targets, DependencyGraphProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		return freeze().process(targets, callback, options);
+	}
+
+	public DependencyGraphProcessingResult<T> resume(DependencyGraphProcessingCallback<T> callback, DependencyGraphJournal<T> journal) {
+		return process(callback, DependencyGraphProcessingOptions.<T>processingOptions().resumeFrom(journal).build());
+	}
+
+	public CompletableFuture<DependencyGraphProcessingResult<T>> processAsync(DependencyGraphAsyncProcessingCallback<T> callback) {
+		return freeze().processAsync(callback);
+	}
+
+	public CompletableFuture<DependencyGraphProcessingResult<T>> processAsync(DependencyGraphAsyncProcessingCallback<T> callback,
+			Executor executor) {
+		return freeze().processAsync(callback, executor);
+	}
+
+	public CompletableFuture<DependencyGraphProcessingResult<T>> processAsync(DependencyGraphAsyncProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		return freeze().processAsync(callback, options);
+	}
+
+	public DependencyGraphProcessingResult<T> processBatches(DependencyGraphBatchProcessingCallback<T> callback) {
+		return freeze().processBatches(callback);
+	}
+
+	public DependencyGraphProcessingResult<T> processBatches(DependencyGraphBatchProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		return freeze().processBatches(callback, options);
+	}
+
+	public DependencyGraphProcessingResult<T> processDynamic(DependencyGraphDynamicProcessingCallback<T> callback) {
+		return processDynamic(callback, DependencyGraphProcessingOptions.<T>defaultOptions());
+	}
+
+	public DependencyGraphProcessingResult<T> processDynamic(DependencyGraphDynamicProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		return processDynamicAsync(callback, options).getCompletion().join();
+	}
+
+	// The graph may only be modified through the returned processing until it is completed.
+	public DependencyGraphDynamicProcessing<T> processDynamicAsync(DependencyGraphDynamicProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		return startDynamicProcessing(this, callback, options);
 	}
 
-	public void process(DependencyGraphProcessingCallback<T> callback) {
-		DependencyGraphProcessingContext<T> context = new DependencyGraphProcessingContext<>(this, callback);
-		SingleDependencyGraphProcessingStep<T> headExecutionStep = context.getStep(getHead());
+	public <V> DependencyGraphValueResult<T, V> computeValues(DependencyGraphValueCallback<T, V> callback,
+			DependencyGraphValueCache<T, V> cache) {
+		return freeze().computeValues(callback, cache);
+	}
 
-		Queue<DependencyGraphProcessingStep<T>> executionQueue = Lists.newLinkedList();
-		executionQueue.add(headExecutionStep);
-		executionQueue.addAll(headExecutionStep.getExecutionQueue());
+	public <V> DependencyGraphValueResult<T, V> computeValues(DependencyGraphValueCallback<T, V> callback,
+			DependencyGraphValueCache<T, V> cache, DependencyGraphProcessingOptions<T> options) {
+		return freeze().computeValues(callback, cache, options);
+	}
 
-		while (!executionQueue.isEmpty()) {
-			executionQueue.poll().execute();
-		}
+	public FrozenDependencyGraph<T> freeze() {
+		return FrozenDependencyGraph.freeze(this);
 	}
 
 	public DependencyGraphElement<T> getHead() {
 		return head;
 	}
 
+	Collection<DependencyGraphElement<T>> getElements() {
+		return elements.values();
+	}
+
 	public DependencyGraphElement<T> add(T entity) {
 		Optional<DependencyGraphElement<T>> existingElement = find(entity);
 		if (existingElement.isPresent()) return existingElement.get();
@@ -48,25 +139,28 @@ public class DependencyGraph<T> {
 	}
 
 	public Optional<DependencyGraphElement<T>> find(T entity) {
-		Optional<T> headEntity = head.getEntity();
-		if (headEntity.isPresent() && headEntity.get().equals(entity)) {
-			return Optional.of(head);
-		}
-
-		return head.findDependent(entity);
+		return Optional.ofNullable(elements.get(entity));
 	}
 
 	private DependencyGraphElement<T> attachToHead(T entity) {
-		DependencyGraphElement<T> entityElement = elementWithEntity(entity);
+		DependencyGraphElement<T> entityElement = rootElementWithEntity(entity);
+		elements.put(entity, entityElement);
 		this.head.addDependent(entityElement);
 
 		return entityElement;
 	}
 
+	private DependencyGraphElement<T> register(T entity) {
+		DependencyGraphElement<T> entityElement = elementWithEntity(entity);
+		elements.put(entity, entityElement);
+
+		return entityElement;
+	}
+
 	public void addDependency(T dependent, T dependency) {
 		DependencyGraphElement<T> parentElement = add(dependency);
-		DependencyGraphElement<T> childElement = find(dependent).orElse(elementWithEntity(dependent));
-		parentElement.addDependent(childElement);
+		DependencyGraphElement<T> childElement = find(dependent).orElseGet(() -> register(dependent));
+		if (parentElement.addDependent(childElement)) head.removeDirectDependent(childElement);
 	}
 
 	public boolean contains(T entity) {
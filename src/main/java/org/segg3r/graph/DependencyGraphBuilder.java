@@ -0,0 +1,206 @@
+package org.segg3r.graph;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.segg3r.graph.DependencyGraphElement.circularDependencyException;
+import static org.segg3r.graph.DependencyGraphElement.elementWithEntity;
+import static org.segg3r.graph.DependencyGraphElement.emptyElement;
+
+public class DependencyGraphBuilder<T> {
+
+	private final Map<T, Integer> ids = Maps.newHashMap();
+	private final List<T> entities = Lists.newArrayList();
+	private int[] edgeDependencies = new int[16];
+	private int[] edgeDependents = new int[16];
+	private int edgeCount = 0;
+	private boolean transitiveReduction = false;
+
+	DependencyGraphBuilder() {}
+
+	public DependencyGraphBuilder<T> add(T entity) {
+		idOf(entity);
+		return this;
+	}
+
+	public DependencyGraphBuilder<T> addDependency(T dependent, T dependency) {
+		if (edgeCount == edgeDependents.length) {
+			edgeDependencies = Arrays.copyOf(edgeDependencies, edgeCount * 2);
+			edgeDependents = Arrays.copyOf(edgeDependents, edgeCount * 2);
+		}
+
+		edgeDependencies[edgeCount] = idOf(dependency);
+		edgeDependents[edgeCount] = idOf(dependent);
+		edgeCount++;
+		return this;
+	}
+
+	public DependencyGraphBuilder<T> addDependencies(T dependent, Iterable<? extends T> dependencies) {
+		for (T dependency : dependencies) {
+			addDependency(dependent, dependency);
+		}
+		return this;
+	}
+
+	public DependencyGraphBuilder<T> addDependencies(Map<? extends T, ? extends Iterable<? extends T>> dependencies) {
+		dependencies.forEach(this::addDependencies);
+		return this;
+	}
+
+	public DependencyGraphBuilder<T> withTransitiveReduction() {
+		this.transitiveReduction = true;
+		return this;
+	}
+
+	public DependencyGraph<T> build() {
+		int size = entities.size();
+		int[] offsets = new int[size + 1];
+		int[] dependents = dependentsByNode(offsets);
+
+		int[] order = topologicalOrder(offsets, dependents);
+		int[] position = new int[size];
+		for (int i = 0; i < size; i++) position[order[i]] = i;
+
+		int[] sortedOffsets = new int[size + 1];
+		int[] sortedDependents = new int[dependents.length];
+		for (int i = 0; i < size; i++) {
+			int node = order[i];
+			int from = sortedOffsets[i];
+			int to = from;
+			for (int j = offsets[node]; j < offsets[node + 1]; j++) {
+				sortedDependents[to++] = position[dependents[j]];
+			}
+			Arrays.sort(sortedDependents, from, to);
+			sortedOffsets[i + 1] = to;
+		}
+
+		boolean[] redundant = transitiveReduction
+				? DependencyGraphReduction.redundantEdges(sortedOffsets, sortedDependents)
+				: new boolean[sortedDependents.length];
+
+		List<T> entitiesInOrder = Lists.newArrayListWithCapacity(size);
+		for (int i = 0; i < size; i++) entitiesInOrder.add(entities.get(order[i]));
+
+		return linkedGraph(entitiesInOrder, sortedOffsets, sortedDependents, redundant);
+	}
+
+	// Elements are created in topological order, so their order numbers are consistent with the edges
+	// and linking them needs no further checks.
+	static <TT> DependencyGraph<TT> linkedGraph(List<TT> entitiesInOrder, int[] dependentOffsets, int[] dependents,
+			boolean[] skippedEdges) {
+		int size = entitiesInOrder.size();
+		DependencyGraphElement<TT> head = emptyElement();
+		Map<TT, DependencyGraphElement<TT>> elements = Maps.newHashMapWithExpectedSize(size);
+		List<DependencyGraphElement<TT>> elementsInOrder = Lists.newArrayListWithCapacity(size);
+		for (TT entity : entitiesInOrder) {
+			DependencyGraphElement<TT> element = elementWithEntity(entity);
+			elements.put(entity, element);
+			elementsInOrder.add(element);
+		}
+
+		for (int i = 0; i < size; i++) {
+			DependencyGraphElement<TT> element = elementsInOrder.get(i);
+			if (element.getDirectDependencies().isEmpty()) head.link(element);
+
+			for (int j = dependentOffsets[i]; j < dependentOffsets[i + 1]; j++) {
+				if (!skippedEdges[j]) element.link(elementsInOrder.get(dependents[j]));
+			}
+		}
+
+		return new DependencyGraph<>(head, elements);
+	}
+
+	private int idOf(T entity) {
+		Integer id = ids.get(entity);
+		if (id != null) return id;
+
+		ids.put(entity, entities.size());
+		entities.add(entity);
+		return entities.size() - 1;
+	}
+
+	private int[] dependentsByNode(int[] offsets) {
+		int size = offsets.length - 1;
+		for (int i = 0; i < edgeCount; i++) offsets[edgeDependencies[i] + 1]++;
+		for (int node = 0; node < size; node++) offsets[node + 1] += offsets[node];
+
+		int[] dependents = new int[edgeCount];
+		int[] next = Arrays.copyOf(offsets, size);
+		for (int i = 0; i < edgeCount; i++) {
+			dependents[next[edgeDependencies[i]]++] = edgeDependents[i];
+		}
+
+		// drop duplicate edges so that dependency counts stay exact
+		int[] uniqueOffsets = new int[size + 1];
+		int unique = 0;
+		for (int node = 0; node < size; node++) {
+			Arrays.sort(dependents, offsets[node], offsets[node + 1]);
+			for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+				if (i == offsets[node] || dependents[i] != dependents[i - 1]) dependents[unique++] = dependents[i];
+			}
+			uniqueOffsets[node + 1] = unique;
+		}
+		System.arraycopy(uniqueOffsets, 0, offsets, 0, offsets.length);
+
+		return Arrays.copyOf(dependents, unique);
+	}
+
+	private int[] topologicalOrder(int[] offsets, int[] dependents) {
+		int size = offsets.length - 1;
+		int[] unvisitedDependencies = new int[size];
+		for (int dependent : dependents) unvisitedDependencies[dependent]++;
+
+		int[] order = new int[size];
+		int head = 0;
+		int tail = 0;
+		for (int node = 0; node < size; node++) {
+			if (unvisitedDependencies[node] == 0) order[tail++] = node;
+		}
+
+		while (head < tail) {
+			int node = order[head++];
+			for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+				if (--unvisitedDependencies[dependents[i]] == 0) order[tail++] = dependents[i];
+			}
+		}
+
+		if (tail < size) throw cycleException(offsets, dependents, unvisitedDependencies);
+		return order;
+	}
+
+	// Every node left with unvisited dependencies has a dependency that is left as well,
+	// so walking such dependencies backwards from any of them must run into a cycle.
+	private RuntimeException cycleException(int[] offsets, int[] dependents, int[] unvisitedDependencies) {
+		int size = offsets.length - 1;
+		int[] unvisitedDependency = new int[size];
+		for (int node = 0; node < size; node++) {
+			for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+				if (unvisitedDependencies[node] > 0) unvisitedDependency[dependents[i]] = node;
+			}
+		}
+
+		int node = 0;
+		while (unvisitedDependencies[node] == 0) node++;
+
+		int[] pathIndex = new int[size];
+		Arrays.fill(pathIndex, -1);
+		List<Integer> path = Lists.newArrayList();
+		while (pathIndex[node] < 0) {
+			pathIndex[node] = path.size();
+			path.add(node);
+			node = unvisitedDependency[node];
+		}
+
+		List<Object> cycle = Lists.newArrayList();
+		List<Integer> cycleNodes = Lists.reverse(path.subList(pathIndex[node], path.size()));
+		cycleNodes.forEach(cycleNode -> cycle.add(entities.get(cycleNode)));
+		cycle.add(cycle.get(0));
+
+		return circularDependencyException(cycle.get(1), cycle.get(0), cycle);
+	}
+
+}
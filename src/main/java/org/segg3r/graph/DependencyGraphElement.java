@@ -1,42 +1,61 @@
 package org.segg3r.graph;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.segg3r.graph.exception.CircularDependencyException;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
+import static java.util.Collections.unmodifiableSet;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static org.segg3r.graph.DependencyGraphStringUtil.elementDescriptor;
 
 public class DependencyGraphElement<T> {
 
+	private static final AtomicLong ORDER_SEQUENCE = new AtomicLong();
+	private static final AtomicLong ROOT_ORDER_SEQUENCE = new AtomicLong();
+
+	// Heads precede every other element.
 	public static <T> DependencyGraphElement<T> emptyElement() {
-		return new DependencyGraphElement<>(null, "'");
+		return new DependencyGraphElement<>(null, "'", Long.MIN_VALUE);
 	}
 
-	public static <T> DependencyGraphElement<T> emptyElementFromRotationWith(T entity) {
-		return new DependencyGraphElement<>(null, entity.toString() + " '");
+	public static <T> DependencyGraphElement<T> elementWithEntity(T entity) {
+		return new DependencyGraphElement<>(entity, entity.toString(), ORDER_SEQUENCE.incrementAndGet());
 	}
 
-	public static <T> DependencyGraphElement<T> elementWithEntity(T entity) {
-		return new DependencyGraphElement<>(entity, entity.toString());
+	// New roots are placed before all existing elements and new dependents after them, so neither reorders anything
+	// when it gets its first edge. Growing a chain from either end then stays constant time per edge.
+	static <T> DependencyGraphElement<T> rootElementWithEntity(T entity) {
+		return new DependencyGraphElement<>(entity, entity.toString(), ROOT_ORDER_SEQUENCE.decrementAndGet());
 	}
 
 	private final T entity;
 	private final Set<DependencyGraphElement<T>> directDependencies = Sets.newHashSet();
 	private final Set<DependencyGraphElement<T>> directDependents = Sets.newHashSet();
 	private final String identifier;
+	private long order;
 
-	private DependencyGraphElement(T entity, String identifier) {
+	private DependencyGraphElement(T entity, String identifier, long order) {
 		this.entity = entity;
 		this.identifier = identifier;
+		this.order = order;
 	}
 
 	public boolean isIndependent() {
-		return !getDependencies().stream()
-				.filter(dependency -> dependency.getEntity().isPresent())
-				.findAny()
-				.isPresent();
+		return findReachable(DependencyGraphElement::getDirectDependencies, DependencyGraphElement::containsEntity) == null;
 	}
 
 	public boolean hasDependencies() {
@@ -44,33 +63,134 @@ public class DependencyGraphElement<T> {
 	}
 
 	public boolean addDependent(DependencyGraphElement<T> dependent) {
-		if (dependent.isDependencyOf(this)) throwCircularDependencyException(dependent, this);
-		if (isDependencyOf(dependent)) return false;
+		if (isDirectDependencyOf(dependent)) return false;
 
-		this.directDependents.add(dependent);
-		dependent.getDependents().forEach(descendant -> descendant.removeDirectDependency(this));
-		dependent.addDependency(this);
+		ensureOrderedBefore(dependent);
+		link(dependent);
 
 		return true;
 	}
 
 	public boolean addDependency(DependencyGraphElement<T> dependency) {
-		if (dependency.dependsOn(this)) throwCircularDependencyException(dependency, this);
-		if (dependsOn(dependency)) return false;
+		return dependency.addDependent(this);
+	}
 
-		this.directDependencies.add(dependency);
-		dependency.getDependencies().forEach(ascendant -> ascendant.removeDirectDependent(this));
-		dependency.addDependent(this);
+	// Elements are kept in topological order (Pearce-Kelly): a new edge only reorders elements
+	// between the two ends of the edge, and finding the dependency while doing so means a cycle.
+	private void ensureOrderedBefore(DependencyGraphElement<T> dependent) {
+		if (this.order < dependent.order) return;
+		if (this == dependent) throwCircularDependencyException(this, this, Arrays.asList(this, this));
+
+		List<DependencyGraphElement<T>> forward = Lists.newArrayList();
+		Deque<DependencyGraphElement<T>> path = dependent.collectDependentsOrderedBefore(this, forward);
+		if (path != null) {
+			path.addFirst(this);
+			throwCircularDependencyException(dependent, this, path);
+		}
 
-		return true;
+		List<DependencyGraphElement<T>> backward = collectDependenciesOrderedAfter(dependent.order);
+
+		reorder(backward, forward);
 	}
 
-	private void throwCircularDependencyException(DependencyGraphElement<T> first, DependencyGraphElement<T> second) {
-		Object firstObject = first.getEntity().orElse(null);
-		Object secondObject = second.getEntity().orElse(null);
-		String message = "Could not create graph. Objects " + firstObject + " and " + secondObject + "have circular dependency on each other.";
+	// Both searches keep their own stack, so long chains can not overflow the call stack.
+	// The elements on the stack of the forward search form the path to the target, i.e. the cycle if it is found.
+	private Deque<DependencyGraphElement<T>> collectDependentsOrderedBefore(DependencyGraphElement<T> target,
+			List<DependencyGraphElement<T>> affected) {
+		Set<DependencyGraphElement<T>> visited = Sets.newIdentityHashSet();
+		Deque<DependencyGraphElement<T>> path = new ArrayDeque<>();
+		Deque<Iterator<DependencyGraphElement<T>>> pending = new ArrayDeque<>();
+		visited.add(this);
+		affected.add(this);
+		path.addLast(this);
+		pending.push(directDependents.iterator());
+
+		while (!pending.isEmpty()) {
+			Iterator<DependencyGraphElement<T>> children = pending.peek();
+			if (!children.hasNext()) {
+				pending.pop();
+				path.removeLast();
+				continue;
+			}
+
+			DependencyGraphElement<T> child = children.next();
+			if (child == target) {
+				path.addLast(child);
+				return path;
+			}
+			if (child.order < target.order && visited.add(child)) {
+				affected.add(child);
+				path.addLast(child);
+				pending.push(child.directDependents.iterator());
+			}
+		}
 
-		throw new CircularDependencyException(message, firstObject, secondObject);
+		return null;
+	}
+
+	private List<DependencyGraphElement<T>> collectDependenciesOrderedAfter(long lowerBound) {
+		List<DependencyGraphElement<T>> affected = Lists.newArrayList();
+		Set<DependencyGraphElement<T>> visited = Sets.newIdentityHashSet();
+		Deque<DependencyGraphElement<T>> pending = new ArrayDeque<>();
+		visited.add(this);
+		pending.push(this);
+
+		while (!pending.isEmpty()) {
+			DependencyGraphElement<T> element = pending.pop();
+			affected.add(element);
+			for (DependencyGraphElement<T> parent : element.directDependencies) {
+				if (parent.order > lowerBound && visited.add(parent)) pending.push(parent);
+			}
+		}
+
+		return affected;
+	}
+
+	private static <T> void reorder(List<DependencyGraphElement<T>> backward, List<DependencyGraphElement<T>> forward) {
+		Comparator<DependencyGraphElement<T>> byOrder = Comparator.comparingLong(element -> element.order);
+		backward.sort(byOrder);
+		forward.sort(byOrder);
+
+		long[] orders = new long[backward.size() + forward.size()];
+		int index = 0;
+		for (DependencyGraphElement<T> element : backward) orders[index++] = element.order;
+		for (DependencyGraphElement<T> element : forward) orders[index++] = element.order;
+		Arrays.sort(orders);
+
+		index = 0;
+		for (DependencyGraphElement<T> element : backward) element.order = orders[index++];
+		for (DependencyGraphElement<T> element : forward) element.order = orders[index++];
+	}
+
+	private void throwCircularDependencyException(DependencyGraphElement<T> first, DependencyGraphElement<T> second,
+			Collection<DependencyGraphElement<T>> cycle) {
+		List<Object> cycleObjects = cycle.stream()
+				.map(element -> element.getEntity().orElse(null))
+				.collect(toList());
+
+		throw circularDependencyException(first.getEntity().orElse(null), second.getEntity().orElse(null), cycleObjects);
+	}
+
+	static CircularDependencyException circularDependencyException(Object first, Object second, List<Object> cycle) {
+		String message = "Could not create graph. Objects " + first + " and " + second
+				+ " have circular dependency on each other: "
+				+ cycle.stream().map(String::valueOf).collect(joining(" -> ")) + ".";
+
+		return new CircularDependencyException(message, first, second, cycle);
+	}
+
+	// Links elements without any checks, the caller guarantees that the graph stays acyclic and ordered.
+	void link(DependencyGraphElement<T> dependent) {
+		addDirectDependent(dependent);
+		dependent.addDirectDependency(this);
+	}
+
+	private void addDirectDependency(DependencyGraphElement<T> dependency) {
+		this.directDependencies.add(dependency);
+	}
+
+	private void addDirectDependent(DependencyGraphElement<T> dependent) {
+		this.directDependents.add(dependent);
 	}
 
 	public boolean removeDirectDependency(DependencyGraphElement<T> dependency) {
@@ -96,7 +216,11 @@ public class DependencyGraphElement<T> {
 	}
 
 	public boolean isDependencyOf(DependencyGraphElement<T> dependent) {
-		return getDependents().contains(dependent);
+		if (!dependent.isLinked()) return findReachable(DependencyGraphElement::getDirectDependents, dependent::equals) != null;
+		if (order >= dependent.order) return false;
+
+		return findReachable(DependencyGraphElement::getDirectDependents, dependent::equals,
+				element -> element.order <= dependent.order) != null;
 	}
 
 	public boolean isDependencyOf(T dependent) { return isDependencyOf(elementWithEntity(dependent)); }
@@ -110,7 +234,11 @@ public class DependencyGraphElement<T> {
 	}
 
 	public boolean dependsOn(DependencyGraphElement<T> dependency) {
-		return getDependencies().contains(dependency);
+		if (!dependency.isLinked()) return findReachable(DependencyGraphElement::getDirectDependencies, dependency::equals) != null;
+		if (order <= dependency.order) return false;
+
+		return findReachable(DependencyGraphElement::getDirectDependencies, dependency::equals,
+				element -> element.order >= dependency.order) != null;
 	}
 
 	public boolean dependsOn(T dependency) {
@@ -118,25 +246,53 @@ public class DependencyGraphElement<T> {
 	}
 
 	public Set<DependencyGraphElement<T>> getDependencies() {
-		Set<DependencyGraphElement<T>> ascendants = Sets.newHashSet();
-		ascendants.addAll(this.directDependencies);
+		return closure(DependencyGraphElement::getDirectDependencies);
+	}
 
-		for (DependencyGraphElement<T> parent : directDependencies) {
-			ascendants.addAll(parent.getDependencies());
-		}
+	public Set<DependencyGraphElement<T>> getDependents() {
+		return closure(DependencyGraphElement::getDirectDependents);
+	}
 
-		return ascendants;
+	// Closures are not retained, a per element cache costs memory quadratic in the size of the graph.
+	// Frozen graphs answer repeated reachability queries on their indexed form instead.
+	private Set<DependencyGraphElement<T>> closure(Function<DependencyGraphElement<T>, Set<DependencyGraphElement<T>>> neighbours) {
+		Set<DependencyGraphElement<T>> closure = Sets.newHashSet();
+		findReachable(neighbours, element -> {
+			closure.add(element);
+			return false;
+		});
+		return unmodifiableSet(closure);
 	}
 
-	public Set<DependencyGraphElement<T>> getDependents() {
-		Set<DependencyGraphElement<T>> descendants = Sets.newHashSet();
-		descendants.addAll(this.directDependents);
+	private DependencyGraphElement<T> findReachable(Function<DependencyGraphElement<T>, Set<DependencyGraphElement<T>>> neighbours,
+			Predicate<DependencyGraphElement<T>> match) {
+		return findReachable(neighbours, match, element -> true);
+	}
 
-		for (DependencyGraphElement<T> child : directDependents) {
-			descendants.addAll(child.getDependents());
+	// Depth-first over one direction of the edges with an explicit stack, stops at the first element that matches.
+	// Only elements within bounds are visited: elements ordered past a target can not lead to it.
+	private DependencyGraphElement<T> findReachable(Function<DependencyGraphElement<T>, Set<DependencyGraphElement<T>>> neighbours,
+			Predicate<DependencyGraphElement<T>> match, Predicate<DependencyGraphElement<T>> bounds) {
+		Set<DependencyGraphElement<T>> visited = Sets.newIdentityHashSet();
+		Deque<DependencyGraphElement<T>> pending = new ArrayDeque<>();
+		visited.add(this);
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			for (DependencyGraphElement<T> next : neighbours.apply(pending.pop())) {
+				if (!bounds.test(next) || !visited.add(next)) continue;
+				if (match.test(next)) return next;
+
+				pending.push(next);
+			}
 		}
 
-		return descendants;
+		return null;
+	}
+
+	// Elements of a graph are always linked, at least roots are to the head. Unlinked elements only serve as probes
+	// for an entity, their order says nothing about the element of that entity.
+	private boolean isLinked() {
+		return !directDependencies.isEmpty() || !directDependents.isEmpty();
 	}
 
 	public Set<DependencyGraphElement<T>> getDirectDependencies() {
@@ -148,19 +304,8 @@ public class DependencyGraphElement<T> {
 	}
 
 	public Optional<DependencyGraphElement<T>> findDependent(T dependent) {
-		for (DependencyGraphElement<T> child : directDependents) {
-			Optional<T> childEntity = child.getEntity();
-			if (childEntity.isPresent() && childEntity.get().equals(dependent)) {
-				return Optional.of(child);
-			}
-
-			Optional<DependencyGraphElement<T>> descendant = child.findDependent(dependent);
-			if (descendant.isPresent()) {
-				return descendant;
-			}
-		}
-
-		return Optional.empty();
+		return Optional.ofNullable(findReachable(DependencyGraphElement::getDirectDependents,
+				element -> element.containsEntity() && element.entity.equals(dependent)));
 	}
 
 	public boolean containsEntity() {
@@ -0,0 +1,43 @@
+package org.segg3r.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public interface DependencyGraphEntityCodec<T> {
+
+	static DependencyGraphEntityCodec<String> stringCodec() {
+		return new DependencyGraphEntityCodec<String>() {
+			@Override
+			public byte[] encode(String entity) {
+				return entity.getBytes(StandardCharsets.UTF_8);
+			}
+
+			@Override
+			public String decode(ByteBuffer bytes) {
+				byte[] array = new byte[bytes.remaining()];
+				bytes.get(array);
+				return new String(array, StandardCharsets.UTF_8);
+			}
+		};
+	}
+
+	static DependencyGraphEntityCodec<Integer> integerCodec() {
+		return new DependencyGraphEntityCodec<Integer>() {
+			@Override
+			public byte[] encode(Integer entity) {
+				return ByteBuffer.allocate(Integer.BYTES).putInt(entity).array();
+			}
+
+			@Override
+			public Integer decode(ByteBuffer bytes) {
+				return bytes.getInt();
+			}
+		};
+	}
+
+	byte[] encode(T entity);
+
+	// The buffer holds exactly the bytes of one entity and is only valid during the call.
+	T decode(ByteBuffer bytes);
+
+}
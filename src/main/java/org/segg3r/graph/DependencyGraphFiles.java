@@ -0,0 +1,182 @@
+package org.segg3r.graph;
+
+import com.google.common.collect.Maps;
+import org.segg3r.graph.exception.DependencyGraphFormatException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Binary layout, all numbers are big-endian ints:
+// magic, version, node count, edge count,
+// dependency offsets [nodes + 1], dependencies [edges], dependent offsets [nodes + 1], dependents [edges],
+// entity offsets [nodes + 1] relative to the entity section, entity section.
+// Node ids are the topological ids of the frozen graph, so a loaded graph needs no sorting.
+// Loading still checks every offset and id in one linear pass, a corrupt file must not produce a broken graph.
+final class DependencyGraphFiles {
+
+	private static final int MAGIC = 0x44475246;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+	private DependencyGraphFiles() {}
+
+	static <T> void write(FrozenDependencyGraph<T> graph, int[] dependencyOffsets, int[] dependencies,
+			int[] dependentOffsets, int[] dependents, Path file, DependencyGraphEntityCodec<T> codec) {
+		int size = graph.size();
+		byte[][] encodedEntities = new byte[size][];
+		int[] entityOffsets = new int[size + 1];
+		for (int node = 0; node < size; node++) {
+			encodedEntities[node] = codec.encode(graph.getEntity(node));
+			entityOffsets[node + 1] = entityOffsets[node] + encodedEntities[node].length;
+		}
+
+		long length = HEADER_BYTES + (long) Integer.BYTES * (3 * (size + 1) + 2 * dependents.length) + entityOffsets[size];
+		try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+			buffer.order(ByteOrder.BIG_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(dependents.length);
+			putInts(buffer, dependencyOffsets);
+			putInts(buffer, dependencies);
+			putInts(buffer, dependentOffsets);
+			putInts(buffer, dependents);
+			putInts(buffer, entityOffsets);
+			for (byte[] entity : encodedEntities) buffer.put(entity);
+			buffer.force();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write graph to " + file, e);
+		}
+	}
+
+	private static void putInts(ByteBuffer buffer, int[] values) {
+		buffer.asIntBuffer().put(values);
+		buffer.position(buffer.position() + values.length * Integer.BYTES);
+	}
+
+	static <T> FrozenDependencyGraph<T> load(Path file, DependencyGraphEntityCodec<T> codec) {
+		try (FileChannel channel = FileChannel.open(file, READ)) {
+			if (channel.size() < HEADER_BYTES) throw formatException(file, "it is too short");
+			if (channel.size() > Integer.MAX_VALUE) throw formatException(file, "it is too large");
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.BIG_ENDIAN);
+			if (buffer.getInt() != MAGIC) throw formatException(file, "it is not a dependency graph file");
+			int version = buffer.getInt();
+			if (version != VERSION) throw formatException(file, "version " + version + " is not supported");
+
+			int size = buffer.getInt();
+			int edgeCount = buffer.getInt();
+			if (size < 0 || edgeCount < 0) throw formatException(file, "its node or edge count is negative");
+			long arrayBytes = (long) Integer.BYTES * (3L * (size + 1L) + 2L * edgeCount);
+			if (buffer.remaining() < arrayBytes) throw formatException(file, "it is truncated");
+
+			int[] dependencyOffsets = getInts(buffer, size + 1);
+			int[] dependencies = getInts(buffer, edgeCount);
+			int[] dependentOffsets = getInts(buffer, size + 1);
+			int[] dependents = getInts(buffer, edgeCount);
+			int[] entityOffsets = getInts(buffer, size + 1);
+			checkOffsets(file, dependencyOffsets, edgeCount, "dependency");
+			checkOffsets(file, dependentOffsets, edgeCount, "dependent");
+			checkOffsets(file, entityOffsets, buffer.remaining(), "entity");
+			checkEdges(file, dependencyOffsets, dependencies, dependentOffsets, dependents);
+
+			ByteBuffer entitySection = buffer.slice();
+			Object[] entities = new Object[size];
+			Map<T, Integer> ids = Maps.newHashMapWithExpectedSize(size);
+			for (int node = 0; node < size; node++) {
+				entitySection.limit(entityOffsets[node + 1]).position(entityOffsets[node]);
+				T entity = decode(file, codec, entitySection.slice(), node);
+				entities[node] = entity;
+				if (ids.put(entity, node) != null) throw formatException(file, "entity of node " + node + " is a duplicate");
+			}
+
+			return new FrozenDependencyGraph<>(entities, ids, dependencyOffsets, dependencies, dependentOffsets, dependents);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not load graph from " + file, e);
+		}
+	}
+
+	// Offsets start at zero, never decrease and end within the section they point into.
+	private static void checkOffsets(Path file, int[] offsets, int sectionLength, String section) {
+		if (offsets[0] != 0) throw formatException(file, section + " offsets do not start at zero");
+		for (int node = 0; node + 1 < offsets.length; node++) {
+			if (offsets[node + 1] < offsets[node]) throw formatException(file, section + " offsets decrease at node " + node);
+		}
+		if (offsets[offsets.length - 1] > sectionLength) throw formatException(file, section + " offsets exceed their section");
+	}
+
+	// Both edge arrays must be in range and topologically ordered, and the dependents must be exactly the transpose
+	// of the dependencies without duplicate edges: the scheduler walks dependents while queries walk dependencies.
+	private static void checkEdges(Path file, int[] dependencyOffsets, int[] dependencies, int[] dependentOffsets, int[] dependents) {
+		int size = dependencyOffsets.length - 1;
+		if (dependencyOffsets[size] != dependencies.length || dependentOffsets[size] != dependents.length) {
+			throw formatException(file, "edge offsets do not cover all edges");
+		}
+
+		int[] incoming = new int[size];
+		for (int node = 0; node < size; node++) {
+			for (int i = dependencyOffsets[node]; i < dependencyOffsets[node + 1]; i++) {
+				if (dependencies[i] < 0 || dependencies[i] >= node) throw formatException(file, "node " + node + " has an invalid dependency");
+			}
+			for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+				if (dependents[i] <= node || dependents[i] >= size) throw formatException(file, "node " + node + " has an invalid dependent");
+				incoming[dependents[i]]++;
+			}
+		}
+		for (int node = 0; node < size; node++) {
+			if (incoming[node] != dependencyOffsets[node + 1] - dependencyOffsets[node]) {
+				throw formatException(file, "dependencies and dependents of node " + node + " do not match");
+			}
+		}
+
+		// Dependencies are walked in node order, so every row of the transpose comes out sorted.
+		int[] transposed = new int[dependents.length];
+		int[] next = Arrays.copyOf(dependentOffsets, size);
+		for (int node = 0; node < size; node++) {
+			for (int i = dependencyOffsets[node]; i < dependencyOffsets[node + 1]; i++) {
+				transposed[next[dependencies[i]]++] = node;
+			}
+		}
+		int[] sortedDependents = dependents.clone();
+		for (int node = 0; node < size; node++) {
+			Arrays.sort(sortedDependents, dependentOffsets[node], dependentOffsets[node + 1]);
+			for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+				if (sortedDependents[i] != transposed[i] || i > dependentOffsets[node] && transposed[i] == transposed[i - 1]) {
+					throw formatException(file, "dependencies and dependents of node " + node + " do not match");
+				}
+			}
+		}
+	}
+
+	private static <T> T decode(Path file, DependencyGraphEntityCodec<T> codec, ByteBuffer bytes, int node) {
+		try {
+			return codec.decode(bytes);
+		} catch (RuntimeException e) {
+			throw new DependencyGraphFormatException("Could not load graph from " + file + ", entity of node " + node
+					+ " can not be decoded.", e);
+		}
+	}
+
+	private static int[] getInts(ByteBuffer buffer, int count) {
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + count * Integer.BYTES);
+		return values;
+	}
+
+	private static DependencyGraphFormatException formatException(Path file, String reason) {
+		return new DependencyGraphFormatException("Could not load graph from " + file + ", " + reason + ".");
+	}
+
+}
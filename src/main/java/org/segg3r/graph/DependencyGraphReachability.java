@@ -0,0 +1,95 @@
+package org.segg3r.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Interval labels over a depth-first forest of the dependents, three ints per node.
+// A node reaches every node of its own subtree, i.e. with pre and post numbers within its own, and can only reach
+// nodes whose [low, post] interval lies within its own, as low is the smallest post number of anything it reaches.
+// Pairs the labels do not settle are searched, visiting only nodes the labels and the topological ids allow.
+final class DependencyGraphReachability {
+
+	private final int[] dependentOffsets;
+	private final int[] dependents;
+	private final int[] pre;
+	private final int[] post;
+	private final int[] low;
+
+	// Expects node ids in topological order.
+	DependencyGraphReachability(int[] dependentOffsets, int[] dependents) {
+		this.dependentOffsets = dependentOffsets;
+		this.dependents = dependents;
+
+		int size = dependentOffsets.length - 1;
+		this.pre = new int[size];
+		this.post = new int[size];
+		this.low = new int[size];
+		Arrays.fill(pre, -1);
+
+		int[] stack = new int[size];
+		int[] next = Arrays.copyOf(dependentOffsets, size);
+		int preCount = 0;
+		int postCount = 0;
+		for (int root = 0; root < size; root++) {
+			if (pre[root] >= 0) continue;
+
+			int top = 0;
+			stack[top++] = root;
+			pre[root] = preCount++;
+			low[root] = Integer.MAX_VALUE;
+			while (top > 0) {
+				int node = stack[top - 1];
+				if (next[node] < dependentOffsets[node + 1]) {
+					int dependent = dependents[next[node]++];
+					if (pre[dependent] < 0) {
+						pre[dependent] = preCount++;
+						low[dependent] = Integer.MAX_VALUE;
+						stack[top++] = dependent;
+					} else {
+						low[node] = Math.min(low[node], low[dependent]);
+					}
+					continue;
+				}
+
+				top--;
+				post[node] = postCount++;
+				low[node] = Math.min(low[node], post[node]);
+				if (top > 0) low[stack[top - 1]] = Math.min(low[stack[top - 1]], low[node]);
+			}
+		}
+	}
+
+	// Whether the dependent can be reached from the dependency through its dependents.
+	boolean reaches(int dependency, int dependent) {
+		if (dependency >= dependent || !mayReach(dependency, dependent)) return false;
+		if (inSubtree(dependency, dependent)) return true;
+
+		BitSet visited = new BitSet();
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = dependency;
+		while (top > 0) {
+			int node = stack[--top];
+			for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+				int next = dependents[i];
+				if (next == dependent || inSubtree(next, dependent)) return true;
+				if (next > dependent || visited.get(next) || !mayReach(next, dependent)) continue;
+
+				visited.set(next);
+				if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+				stack[top++] = next;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean inSubtree(int root, int node) {
+		return pre[root] <= pre[node] && post[node] <= post[root];
+	}
+
+	private boolean mayReach(int from, int to) {
+		return low[from] <= low[to] && post[to] <= post[from];
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.segg3r.graph;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+final class DependencyGraphReduction {
+
+	private static final int PARALLEL_LEVEL_THRESHOLD = 64;
+
+	private DependencyGraphReduction() {}
+
+	// Expects node ids in topological order and every row of dependents sorted by id.
+	// A dependent is redundant when it is reachable through a smaller dependent of the same node.
+	// Nodes of the same height (longest path to a sink) never reach each other, so each height
+	// is reduced in parallel once all lower heights are done.
+	// A reachability set is dropped as soon as the last of its dependencies has been reduced, and sets grow with
+	// the ids they hold, so memory follows the sets still needed rather than nodes times graph size.
+	static boolean[] redundantEdges(int[] dependentOffsets, int[] dependents) {
+		int size = dependentOffsets.length - 1;
+		boolean[] redundant = new boolean[dependents.length];
+		BitSet[] reachable = new BitSet[size];
+		AtomicIntegerArray pendingReaders = new AtomicIntegerArray(size);
+		for (int dependent : dependents) pendingReaders.incrementAndGet(dependent);
+
+		int[][] levels = nodesByHeight(dependentOffsets, dependents);
+		for (int[] level : levels) {
+			IntStream nodes = IntStream.of(level);
+			if (level.length >= PARALLEL_LEVEL_THRESHOLD) nodes = nodes.parallel();
+
+			nodes.forEach(node -> {
+				BitSet nodeReachable = reduce(node, dependentOffsets, dependents, reachable, redundant);
+				if (pendingReaders.get(node) > 0) reachable[node] = nodeReachable;
+				release(node, dependentOffsets, dependents, reachable, pendingReaders);
+			});
+		}
+
+		return redundant;
+	}
+
+	private static BitSet reduce(int node, int[] dependentOffsets, int[] dependents, BitSet[] reachable,
+			boolean[] redundant) {
+		BitSet nodeReachable = new BitSet();
+		for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+			int dependent = dependents[i];
+			if (nodeReachable.get(dependent)) {
+				redundant[i] = true;
+				continue;
+			}
+
+			nodeReachable.set(dependent);
+			nodeReachable.or(reachable[dependent]);
+		}
+
+		return nodeReachable;
+	}
+
+	// Dependents are on lower heights, so nobody writes their sets any more when they are released.
+	private static void release(int node, int[] dependentOffsets, int[] dependents, BitSet[] reachable,
+			AtomicIntegerArray pendingReaders) {
+		for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+			if (pendingReaders.decrementAndGet(dependents[i]) == 0) reachable[dependents[i]] = null;
+		}
+	}
+
+	private static int[][] nodesByHeight(int[] dependentOffsets, int[] dependents) {
+		int size = dependentOffsets.length - 1;
+		int[] heights = new int[size];
+		int maxHeight = -1;
+		for (int node = size - 1; node >= 0; node--) {
+			int height = 0;
+			for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+				height = Math.max(height, heights[dependents[i]] + 1);
+			}
+			heights[node] = height;
+			maxHeight = Math.max(maxHeight, height);
+		}
+
+		int[] levelSizes = new int[maxHeight + 1];
+		for (int height : heights) levelSizes[height]++;
+
+		int[][] levels = new int[maxHeight + 1][];
+		for (int height = 0; height <= maxHeight; height++) levels[height] = new int[levelSizes[height]];
+
+		int[] filled = new int[maxHeight + 1];
+		for (int node = 0; node < size; node++) {
+			levels[heights[node]][filled[heights[node]]++] = node;
+		}
+
+		return levels;
+	}
+
+}
@@ -0,0 +1,420 @@
+package org.segg3r.graph;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.segg3r.graph.execution.DependencyGraphAsyncProcessingCallback;
+import org.segg3r.graph.execution.DependencyGraphBatchProcessingCallback;
+import org.segg3r.graph.execution.DependencyGraphProcessingCallback;
+import org.segg3r.graph.execution.DependencyGraphProcessingContext;
+import org.segg3r.graph.execution.DependencyGraphProcessingOptions;
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+import org.segg3r.graph.execution.value.DependencyGraphValueCache;
+import org.segg3r.graph.execution.value.DependencyGraphValueCallback;
+import org.segg3r.graph.execution.value.DependencyGraphValueProcessing;
+import org.segg3r.graph.execution.value.DependencyGraphValueResult;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.segg3r.graph.execution.DependencyGraphAsyncProcessingCallback.asyncOf;
+
+public class FrozenDependencyGraph<T> {
+
+	public static <TT> FrozenDependencyGraph<TT> freeze(DependencyGraph<TT> graph) {
+		List<DependencyGraphElement<TT>> elements = topologicalOrder(graph.getElements());
+		int size = elements.size();
+
+		Map<TT, Integer> ids = Maps.newHashMapWithExpectedSize(size);
+		Object[] entities = new Object[size];
+		for (int id = 0; id < size; id++) {
+			TT entity = elements.get(id).getEntity().get();
+			ids.put(entity, id);
+			entities[id] = entity;
+		}
+
+		int[] dependencyOffsets = new int[size + 1];
+		int[] dependentOffsets = new int[size + 1];
+		for (int id = 0; id < size; id++) {
+			DependencyGraphElement<TT> element = elements.get(id);
+			dependencyOffsets[id + 1] = dependencyOffsets[id] + entityDependencyCount(element);
+			dependentOffsets[id + 1] = dependentOffsets[id] + element.getDirectDependents().size();
+		}
+
+		int[] dependencies = new int[dependencyOffsets[size]];
+		int[] dependents = new int[dependentOffsets[size]];
+		for (int id = 0; id < size; id++) {
+			DependencyGraphElement<TT> element = elements.get(id);
+
+			int dependencyIndex = dependencyOffsets[id];
+			for (DependencyGraphElement<TT> dependency : element.getDirectDependencies()) {
+				if (dependency.containsEntity()) dependencies[dependencyIndex++] = ids.get(dependency.getEntity().get());
+			}
+			Arrays.sort(dependencies, dependencyOffsets[id], dependencyOffsets[id + 1]);
+
+			int dependentIndex = dependentOffsets[id];
+			for (DependencyGraphElement<TT> dependent : element.getDirectDependents()) {
+				dependents[dependentIndex++] = ids.get(dependent.getEntity().get());
+			}
+			Arrays.sort(dependents, dependentOffsets[id], dependentOffsets[id + 1]);
+		}
+
+		return new FrozenDependencyGraph<>(entities, ids, dependencyOffsets, dependencies, dependentOffsets, dependents);
+	}
+
+	private static <TT> List<DependencyGraphElement<TT>> topologicalOrder(Collection<DependencyGraphElement<TT>> elements) {
+		Map<DependencyGraphElement<TT>, Integer> unvisitedDependencies = Maps.newHashMapWithExpectedSize(elements.size());
+		Queue<DependencyGraphElement<TT>> ready = new ArrayDeque<>();
+		for (DependencyGraphElement<TT> element : elements) {
+			int dependencyCount = entityDependencyCount(element);
+			unvisitedDependencies.put(element, dependencyCount);
+			if (dependencyCount == 0) ready.add(element);
+		}
+
+		List<DependencyGraphElement<TT>> order = Lists.newArrayListWithCapacity(elements.size());
+		while (!ready.isEmpty()) {
+			DependencyGraphElement<TT> element = ready.poll();
+			order.add(element);
+
+			for (DependencyGraphElement<TT> dependent : element.getDirectDependents()) {
+				if (unvisitedDependencies.merge(dependent, -1, Integer::sum) == 0) ready.add(dependent);
+			}
+		}
+
+		return order;
+	}
+
+	private static int entityDependencyCount(DependencyGraphElement<?> element) {
+		int count = 0;
+		for (DependencyGraphElement<?> dependency : element.getDirectDependencies()) {
+			if (dependency.containsEntity()) count++;
+		}
+
+		return count;
+	}
+
+	// Node ids are assigned in topological order: every dependency has a smaller id than its dependents.
+	// Rows of both edge arrays are sorted by id.
+	private final Object[] entities;
+	private final Map<T, Integer> ids;
+	private final int[] dependencyOffsets;
+	private final int[] dependencies;
+	private final int[] dependentOffsets;
+	private final int[] dependents;
+	private volatile DependencyGraphReachability reachability;
+
+	FrozenDependencyGraph(Object[] entities, Map<T, Integer> ids,
+			int[] dependencyOffsets, int[] dependencies, int[] dependentOffsets, int[] dependents) {
+		this.entities = entities;
+		this.ids = ids;
+		this.dependencyOffsets = dependencyOffsets;
+		this.dependencies = dependencies;
+		this.dependentOffsets = dependentOffsets;
+		this.dependents = dependents;
+	}
+
+	public static <TT> FrozenDependencyGraph<TT> load(Path file, DependencyGraphEntityCodec<TT> codec) {
+		return DependencyGraphFiles.load(file, codec);
+	}
+
+	public void writeTo(Path file, DependencyGraphEntityCodec<T> codec) {
+		DependencyGraphFiles.write(this, dependencyOffsets, dependencies, dependentOffsets, dependents, file, codec);
+	}
+
+	public DependencyGraph<T> thaw() {
+		List<T> entitiesInOrder = Lists.newArrayListWithCapacity(size());
+		for (int node = 0; node < size(); node++) entitiesInOrder.add(getEntity(node));
+
+		return DependencyGraphBuilder.linkedGraph(entitiesInOrder, dependentOffsets, dependents, new boolean[dependents.length]);
+	}
+
+	public FrozenDependencyGraph<T> transitiveReduction() {
+		boolean[] redundant = DependencyGraphReduction.redundantEdges(dependentOffsets, dependents);
+
+		int size = size();
+		int[] reducedDependentOffsets = new int[size + 1];
+		int[] reducedDependents = new int[dependents.length];
+		int[] reducedDependencyOffsets = new int[size + 1];
+		int kept = 0;
+		for (int node = 0; node < size; node++) {
+			for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+				if (redundant[i]) continue;
+
+				reducedDependents[kept++] = dependents[i];
+				reducedDependencyOffsets[dependents[i] + 1]++;
+			}
+			reducedDependentOffsets[node + 1] = kept;
+		}
+		for (int node = 0; node < size; node++) reducedDependencyOffsets[node + 1] += reducedDependencyOffsets[node];
+
+		int[] reducedDependencies = new int[kept];
+		int[] next = Arrays.copyOf(reducedDependencyOffsets, size);
+		for (int node = 0; node < size; node++) {
+			for (int i = reducedDependentOffsets[node]; i < reducedDependentOffsets[node + 1]; i++) {
+				reducedDependencies[next[reducedDependents[i]]++] = node;
+			}
+		}
+
+		return new FrozenDependencyGraph<>(entities, ids, reducedDependencyOffsets, reducedDependencies,
+				reducedDependentOffsets, Arrays.copyOf(reducedDependents, kept));
+	}
+
+	// The targets and everything they transitively depend on. Keeping the relative order of the ids keeps them topological.
+	public FrozenDependencyGraph<T> upstreamOf(Collection<? extends T> targets) {
+		BitSet kept = new BitSet(size());
+		int[] stack = new int[size()];
+		int top = 0;
+		for (T target : targets) {
+			int node = requireIndexOf(target);
+			if (kept.get(node)) continue;
+
+			kept.set(node);
+			stack[top++] = node;
+		}
+		while (top > 0) {
+			int current = stack[--top];
+			for (int i = dependencyOffsets[current]; i < dependencyOffsets[current + 1]; i++) {
+				int dependency = dependencies[i];
+				if (kept.get(dependency)) continue;
+
+				kept.set(dependency);
+				stack[top++] = dependency;
+			}
+		}
+
+		int size = kept.cardinality();
+		if (size == size()) return this;
+
+		int[] newIds = new int[size()];
+		Object[] keptEntities = new Object[size];
+		Map<T, Integer> keptIds = Maps.newHashMapWithExpectedSize(size);
+		int id = 0;
+		for (int node = kept.nextSetBit(0); node >= 0; node = kept.nextSetBit(node + 1)) {
+			newIds[node] = id;
+			keptEntities[id] = entities[node];
+			keptIds.put(getEntity(node), id);
+			id++;
+		}
+
+		// Every dependency of a kept node is kept, only dependent edges need filtering.
+		int[] keptDependencyOffsets = new int[size + 1];
+		int[] keptDependentOffsets = new int[size + 1];
+		int dependencyCount = 0;
+		int dependentCount = 0;
+		for (int node = kept.nextSetBit(0); node >= 0; node = kept.nextSetBit(node + 1)) {
+			dependencyCount += getDirectDependencyCount(node);
+			for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+				if (kept.get(dependents[i])) dependentCount++;
+			}
+			keptDependencyOffsets[newIds[node] + 1] = dependencyCount;
+			keptDependentOffsets[newIds[node] + 1] = dependentCount;
+		}
+
+		int[] keptDependencies = new int[dependencyCount];
+		int[] keptDependents = new int[dependentCount];
+		for (int node = kept.nextSetBit(0); node >= 0; node = kept.nextSetBit(node + 1)) {
+			int nextDependency = keptDependencyOffsets[newIds[node]];
+			for (int i = dependencyOffsets[node]; i < dependencyOffsets[node + 1]; i++) {
+				keptDependencies[nextDependency++] = newIds[dependencies[i]];
+			}
+			int nextDependent = keptDependentOffsets[newIds[node]];
+			for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+				if (kept.get(dependents[i])) keptDependents[nextDependent++] = newIds[dependents[i]];
+			}
+		}
+
+		return new FrozenDependencyGraph<>(keptEntities, keptIds, keptDependencyOffsets, keptDependencies,
+				keptDependentOffsets, keptDependents);
+	}
+
+	public DependencyGraphProcessingResult<T> process(DependencyGraphProcessingCallback<T> callback) {
+		return process(callback, DependencyGraphProcessingOptions.<T>defaultOptions());
+	}
+
+	public DependencyGraphProcessingResult<T> process(DependencyGraphProcessingCallback<T> callback, Executor executor) {
+		return process(callback, DependencyGraphProcessingOptions.<T>processingOptions().executor(executor).build());
+	}
+
+	public DependencyGraphProcessingResult<T> process(DependencyGraphProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		return processAsync(asyncOf(callback), options).join();
+	}
+
+	// Only the targets and their dependencies are processed, the result does not mention any other node.
+	public DependencyGraphProcessingResult<T> process(Set<? extends T> targets, DependencyGraphProcessingCallback<T> callback) {
+		return process(targets, callback, DependencyGraphProcessingOptions.<T>defaultOptions());
+	}
+
+	public DependencyGraphProcessingResult<T> process(Set<? extends T> targets, DependencyGraphProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		return upstreamOf(targets).process(callback, options);
+	}
+
+	public CompletableFuture<DependencyGraphProcessingResult<T>> processAsync(DependencyGraphAsyncProcessingCallback<T> callback) {
+		return processAsync(callback, DependencyGraphProcessingOptions.<T>defaultOptions());
+	}
+
+	public CompletableFuture<DependencyGraphProcessingResult<T>> processAsync(DependencyGraphAsyncProcessingCallback<T> callback,
+			Executor executor) {
+		return processAsync(callback, DependencyGraphProcessingOptions.<T>processingOptions().executor(executor).build());
+	}
+
+	public CompletableFuture<DependencyGraphProcessingResult<T>> processAsync(DependencyGraphAsyncProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		DependencyGraphProcessingContext<T> context = new DependencyGraphProcessingContext<>(this, callback, options);
+		context.start();
+
+		return context.getCompletion();
+	}
+
+	public DependencyGraphProcessingResult<T> processBatches(DependencyGraphBatchProcessingCallback<T> callback) {
+		return processBatches(callback, DependencyGraphProcessingOptions.<T>defaultOptions());
+	}
+
+	public DependencyGraphProcessingResult<T> processBatches(DependencyGraphBatchProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		if (options.getMaxAttempts() > 1 || options.getNodeTimeoutNanos() > 0) {
+			throw new IllegalArgumentException("Batch processing supports neither retries nor node timeouts.");
+		}
+
+		DependencyGraphProcessingContext<T> context = new DependencyGraphProcessingContext<>(this, callback, options);
+		context.start();
+
+		return context.getCompletion().join();
+	}
+
+	public <V> DependencyGraphValueResult<T, V> computeValues(DependencyGraphValueCallback<T, V> callback,
+			DependencyGraphValueCache<T, V> cache) {
+		return computeValues(callback, cache, DependencyGraphProcessingOptions.<T>defaultOptions());
+	}
+
+	public <V> DependencyGraphValueResult<T, V> computeValues(DependencyGraphValueCallback<T, V> callback,
+			DependencyGraphValueCache<T, V> cache, DependencyGraphProcessingOptions<T> options) {
+		return computeValuesAsync(callback, cache, options).join();
+	}
+
+	public <V> CompletableFuture<DependencyGraphValueResult<T, V>> computeValuesAsync(DependencyGraphValueCallback<T, V> callback,
+			DependencyGraphValueCache<T, V> cache, DependencyGraphProcessingOptions<T> options) {
+		return DependencyGraphValueProcessing.computeValues(this, callback, cache, options);
+	}
+
+	public int size() {
+		return entities.length;
+	}
+
+	public int edgeCount() {
+		return dependents.length;
+	}
+
+	public int indexOf(T entity) {
+		Integer id = ids.get(entity);
+		return id == null ? -1 : id;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T getEntity(int node) {
+		return (T) entities[node];
+	}
+
+	public boolean contains(T entity) {
+		return ids.containsKey(entity);
+	}
+
+	public int getDirectDependencyCount(int node) {
+		return dependencyOffsets[node + 1] - dependencyOffsets[node];
+	}
+
+	public int getDirectDependency(int node, int index) {
+		return dependencies[dependencyOffsets[node] + index];
+	}
+
+	public int getDirectDependentCount(int node) {
+		return dependentOffsets[node + 1] - dependentOffsets[node];
+	}
+
+	public int getDirectDependent(int node, int index) {
+		return dependents[dependentOffsets[node] + index];
+	}
+
+	public boolean directlyDependsOn(T dependent, T dependency) {
+		int node = requireIndexOf(dependent);
+		int target = requireIndexOf(dependency);
+		for (int i = dependencyOffsets[node]; i < dependencyOffsets[node + 1]; i++) {
+			if (dependencies[i] == target) return true;
+		}
+
+		return false;
+	}
+
+	public boolean dependsOn(T dependent, T dependency) {
+		return getReachability().reaches(requireIndexOf(dependency), requireIndexOf(dependent));
+	}
+
+	// Labelled on the first query, a graph that is only processed never pays for it.
+	private DependencyGraphReachability getReachability() {
+		DependencyGraphReachability labels = reachability;
+		if (labels == null) reachability = labels = new DependencyGraphReachability(dependentOffsets, dependents);
+
+		return labels;
+	}
+
+	public Set<T> getDependencies(T entity) {
+		return toEntities(reachable(requireIndexOf(entity), dependencyOffsets, dependencies));
+	}
+
+	public Set<T> getDependents(T entity) {
+		return toEntities(reachable(requireIndexOf(entity), dependentOffsets, dependents));
+	}
+
+	private int requireIndexOf(T entity) {
+		int node = indexOf(entity);
+		if (node < 0) throw new IllegalArgumentException("Entity " + entity + " is not part of the graph.");
+
+		return node;
+	}
+
+	private BitSet reachable(int node, int[] offsets, int[] targets) {
+		BitSet visited = new BitSet();
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = node;
+
+		while (top > 0) {
+			int current = stack[--top];
+			for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+				int target = targets[i];
+				if (visited.get(target)) continue;
+
+				visited.set(target);
+				if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+				stack[top++] = target;
+			}
+		}
+
+		return visited;
+	}
+
+	private Set<T> toEntities(BitSet nodes) {
+		Set<T> result = Sets.newHashSetWithExpectedSize(nodes.cardinality());
+		for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+			result.add(getEntity(node));
+		}
+
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "Frozen graph of " + size() + " nodes and " + edgeCount() + " edges";
+	}
+
+}
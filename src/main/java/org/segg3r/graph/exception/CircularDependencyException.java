@@ -1,14 +1,25 @@
 package org.segg3r.graph.exception;
 
+import java.util.Collections;
+import java.util.List;
+
 public class CircularDependencyException extends RuntimeException {
 
+	private static final long serialVersionUID = 1L;
+
 	private final Object first;
 	private final Object second;
+	private final List<Object> cycle;
 
 	public CircularDependencyException(String message, Object first, Object second) {
+		this(message, first, second, Collections.emptyList());
+	}
+
+	public CircularDependencyException(String message, Object first, Object second, List<Object> cycle) {
 		super(message);
 		this.first = first;
 		this.second = second;
+		this.cycle = Collections.unmodifiableList(cycle);
 	}
 
 	public Object getFirst() {
@@ -19,4 +30,9 @@ public class CircularDependencyException extends RuntimeException {
 		return second;
 	}
 
+	// Each object is a dependency of the next one, the first and the last objects are the same.
+	public List<Object> getCycle() {
+		return cycle;
+	}
+
 }
@@ -0,0 +1,15 @@
+package org.segg3r.graph.exception;
+
+public class DependencyGraphFormatException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public DependencyGraphFormatException(String message) {
+		super(message);
+	}
+
+	public DependencyGraphFormatException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,48 @@
+package org.segg3r.graph.execution;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.segg3r.graph.execution.DependencyGraphProcessingStepStateChange.stateChangeOf;
+
+public interface DependencyGraphAsyncProcessingCallback<T> {
+
+	static <TT> DependencyGraphAsyncProcessingCallback<TT> asyncProcessingCallback(
+			Function<TT, ? extends CompletionStage<?>> nodeProcessor) {
+		return new DependencyGraphAsyncProcessingCallback<TT>() {
+			@Override
+			public CompletionStage<?> processNode(TT node) {
+				return nodeProcessor.apply(node);
+			}
+		};
+	}
+
+	static <TT> DependencyGraphAsyncProcessingCallback<TT> asyncProcessingCallback(
+			Function<TT, ? extends CompletionStage<?>> nodeProcessor,
+			Consumer<DependencyGraphProcessingStepStateChange<TT>> stateConsumer) {
+		return new DependencyGraphAsyncProcessingCallback<TT>() {
+			@Override
+			public CompletionStage<?> processNode(TT node) {
+				return nodeProcessor.apply(node);
+			}
+
+			@Override
+			public void onNodeStateChanged(TT node, DependencyGraphProcessingStepState state) {
+				stateConsumer.accept(stateChangeOf(node, state));
+			}
+		};
+	}
+
+	static <TT> DependencyGraphAsyncProcessingCallback<TT> asyncOf(DependencyGraphProcessingCallback<TT> callback) {
+		return new SynchronousProcessingCallbackAdapter<>(callback);
+	}
+
+	default CompletionStage<?> processNode(T node) {
+		return CompletableFuture.completedFuture(null);
+	}
+
+	default void onNodeStateChanged(T node, DependencyGraphProcessingStepState state) {}
+
+}
@@ -0,0 +1,17 @@
+package org.segg3r.graph.execution;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface DependencyGraphBatchProcessingCallback<T> {
+
+	static <TT> DependencyGraphBatchProcessingCallback<TT> batchProcessingCallback(Consumer<List<TT>> batchConsumer) {
+		return batchConsumer::accept;
+	}
+
+	// Nodes of a batch are independent of each other. A thrown exception fails every node of the batch.
+	void processNodes(List<T> nodes);
+
+	default void onNodeStateChanged(T node, DependencyGraphProcessingStepState state) {}
+
+}
@@ -0,0 +1,146 @@
+package org.segg3r.graph.execution;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.segg3r.graph.DependencyGraph;
+import org.segg3r.graph.FrozenDependencyGraph;
+import org.segg3r.graph.execution.step.SingleDependencyGraphProcessingStep;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+import static org.segg3r.graph.execution.DependencyGraphProcessingContext.growingContext;
+import static org.segg3r.graph.execution.DependencyGraphProcessingStepState.FINISHED;
+
+// Processes a graph that keeps growing while it is processed, on a regular processing context.
+// An expansion holds back every step it adds or wires up until it is closed, so a node can be wired up before it may start.
+// The graph and the steps by node are guarded by this object, the steps themselves run without it.
+public class DependencyGraphDynamicProcessing<T> implements DependencyGraphExpansion<T> {
+
+	public static <TT> DependencyGraphDynamicProcessing<TT> startDynamicProcessing(DependencyGraph<TT> graph,
+			DependencyGraphDynamicProcessingCallback<TT> callback, DependencyGraphProcessingOptions<TT> options) {
+		DependencyGraphDynamicProcessing<TT> processing = new DependencyGraphDynamicProcessing<>(graph, callback, options);
+		processing.context.start();
+		return processing;
+	}
+
+	private final DependencyGraph<T> graph;
+	private final DependencyGraphDynamicProcessingCallback<T> callback;
+	private final DependencyGraphProcessingContext<T> context;
+	private final Map<T, SingleDependencyGraphProcessingStep<T>> steps = Maps.newHashMap();
+
+	private DependencyGraphDynamicProcessing(DependencyGraph<T> graph, DependencyGraphDynamicProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		this.graph = graph;
+		this.callback = callback;
+		this.context = growingContext(graph, new DependencyGraphAsyncProcessingCallback<T>() {
+			@Override
+			public CompletionStage<?> processNode(T node) {
+				expand(expansion -> callback.processNode(node, expansion));
+				return null;
+			}
+
+			@Override
+			public void onNodeStateChanged(T node, DependencyGraphProcessingStepState state) {
+				callback.onNodeStateChanged(node, state);
+			}
+		}, options);
+
+		FrozenDependencyGraph<T> initialGraph = context.getGraph();
+		for (int node = 0; node < initialGraph.size(); node++) {
+			steps.put(initialGraph.getEntity(node), context.getStep(node));
+		}
+	}
+
+	public void expand(Consumer<DependencyGraphExpansion<T>> expansionConsumer) {
+		if (!context.holdCompletion()) {
+			throw new IllegalStateException("Could not expand graph, its processing is already completed.");
+		}
+
+		Expansion expansion = new Expansion();
+		try {
+			expansionConsumer.accept(expansion);
+		} finally {
+			expansion.close();
+		}
+	}
+
+	@Override
+	public void add(T node) {
+		expand(expansion -> expansion.add(node));
+	}
+
+	@Override
+	public void addDependency(T dependent, T dependency) {
+		expand(expansion -> expansion.addDependency(dependent, dependency));
+	}
+
+	public CompletableFuture<DependencyGraphProcessingResult<T>> getCompletion() {
+		return context.getCompletion();
+	}
+
+	// Collects the steps an expansion holds, they are released once the expansion is closed.
+	private class Expansion implements DependencyGraphExpansion<T> {
+
+		private final Set<SingleDependencyGraphProcessingStep<T>> held = Sets.newLinkedHashSet();
+		private boolean closed;
+
+		@Override
+		public void add(T node) {
+			synchronized (DependencyGraphDynamicProcessing.this) {
+				checkOpen();
+				stepOf(node);
+			}
+		}
+
+		@Override
+		public void addDependency(T dependent, T dependency) {
+			synchronized (DependencyGraphDynamicProcessing.this) {
+				checkOpen();
+				SingleDependencyGraphProcessingStep<T> dependencyStep = stepOf(dependency);
+				SingleDependencyGraphProcessingStep<T> dependentStep = stepOf(dependent);
+				if (!held.contains(dependentStep)) {
+					if (!dependentStep.hold()) {
+						throw new IllegalStateException("Could not add dependency " + dependency + " to " + dependent
+								+ ", it is already scheduled.");
+					}
+					held.add(dependentStep);
+				}
+
+				boolean existingEdge = graph.find(dependent).get().directlyDependsOn(graph.find(dependency).get());
+				graph.addDependency(dependent, dependency);
+				if (!existingEdge) context.addDependency(dependentStep, dependencyStep);
+			}
+		}
+
+		private void checkOpen() {
+			if (closed) throw new IllegalStateException("Could not expand graph, the expansion is already closed.");
+		}
+
+		private SingleDependencyGraphProcessingStep<T> stepOf(T node) {
+			SingleDependencyGraphProcessingStep<T> step = steps.get(node);
+			if (step == null) {
+				graph.add(node);
+				step = context.addStep(node);
+				steps.put(node, step);
+				held.add(step);
+			}
+
+			return step;
+		}
+
+		private void close() {
+			synchronized (DependencyGraphDynamicProcessing.this) {
+				closed = true;
+			}
+
+			for (SingleDependencyGraphProcessingStep<T> step : held) context.release(step, FINISHED);
+			context.onStepCompleted();
+		}
+
+	}
+
+}
@@ -0,0 +1,41 @@
+package org.segg3r.graph.execution;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.segg3r.graph.execution.DependencyGraphProcessingStepStateChange.stateChangeOf;
+
+public interface DependencyGraphDynamicProcessingCallback<T> {
+
+	static <TT> DependencyGraphDynamicProcessingCallback<TT> dynamicProcessingCallback(
+			BiConsumer<TT, DependencyGraphExpansion<TT>> nodeProcessor) {
+		return new DependencyGraphDynamicProcessingCallback<TT>() {
+			@Override
+			public void processNode(TT node, DependencyGraphExpansion<TT> expansion) {
+				nodeProcessor.accept(node, expansion);
+			}
+		};
+	}
+
+	static <TT> DependencyGraphDynamicProcessingCallback<TT> dynamicProcessingCallback(
+			BiConsumer<TT, DependencyGraphExpansion<TT>> nodeProcessor,
+			Consumer<DependencyGraphProcessingStepStateChange<TT>> stateConsumer) {
+		return new DependencyGraphDynamicProcessingCallback<TT>() {
+			@Override
+			public void processNode(TT node, DependencyGraphExpansion<TT> expansion) {
+				nodeProcessor.accept(node, expansion);
+			}
+
+			@Override
+			public void onNodeStateChanged(TT node, DependencyGraphProcessingStepState state) {
+				stateConsumer.accept(stateChangeOf(node, state));
+			}
+		};
+	}
+
+	// Nodes and edges added through the expansion are scheduled once the node has been processed.
+	default void processNode(T node, DependencyGraphExpansion<T> expansion) {}
+
+	default void onNodeStateChanged(T node, DependencyGraphProcessingStepState state) {}
+
+}
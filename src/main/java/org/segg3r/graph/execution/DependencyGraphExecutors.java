@@ -0,0 +1,68 @@
+package org.segg3r.graph.execution;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+public final class DependencyGraphExecutors {
+
+	private static final Executor DEFAULT_EXECUTOR = ForkJoinPool.getCommonPoolParallelism() > 1
+			? ForkJoinPool.commonPool()
+			: runnable -> new Thread(runnable).start();
+
+	private DependencyGraphExecutors() {}
+
+	// Runs the timers of all graphs, its tasks must be short and hand any blocking work over to another executor.
+	public static ScheduledExecutorService sharedScheduler() {
+		return SchedulerHolder.SCHEDULER;
+	}
+
+	public static Executor defaultExecutor() {
+		return DEFAULT_EXECUTOR;
+	}
+
+	public static ExecutorService boundedPool(int threads) {
+		return Executors.newFixedThreadPool(threads, threadFactory("dependency-graph-worker-%d"));
+	}
+
+	public static ExecutorService asyncForkJoinPool(int parallelism) {
+		return new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+	}
+
+	public static ExecutorService virtualThreadPerNode() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(threadFactory("dependency-graph-node-%d"));
+		}
+	}
+
+	private static final class SchedulerHolder {
+
+		private static final ScheduledExecutorService SCHEDULER = newScheduler();
+
+		// Timeouts are cancelled far more often than they fire, they should not pile up in the queue.
+		private static ScheduledExecutorService newScheduler() {
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, threadFactory("dependency-graph-scheduler-%d"));
+			scheduler.setRemoveOnCancelPolicy(true);
+			return scheduler;
+		}
+
+	}
+
+	private static ThreadFactory threadFactory(String nameFormat) {
+		return new ThreadFactoryBuilder()
+				.setNameFormat(nameFormat)
+				.setDaemon(true)
+				.build();
+	}
+
+}
@@ -0,0 +1,9 @@
+package org.segg3r.graph.execution;
+
+public interface DependencyGraphExpansion<T> {
+
+	void add(T node);
+
+	void addDependency(T dependent, T dependency);
+
+}
@@ -0,0 +1,11 @@
+package org.segg3r.graph.execution;
+
+public enum DependencyGraphFailurePolicy {
+
+	// Only dependents of a failed node fail, independent branches are processed to the end.
+	CONTINUE_INDEPENDENT,
+
+	// The first failed node cancels every node that is still pending and interrupts the running ones.
+	FAIL_FAST
+
+}
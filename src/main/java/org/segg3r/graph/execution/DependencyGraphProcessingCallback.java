@@ -7,7 +7,12 @@ import static org.segg3r.graph.execution.DependencyGraphProcessingStepStateChang
 public interface DependencyGraphProcessingCallback<T> {
 
 	static <TT> DependencyGraphProcessingCallback<TT> processingCallback(Consumer<TT> nodeConsumer) {
-		return processingCallback(nodeConsumer, stateChange -> {});
+		return new DependencyGraphProcessingCallback<TT>() {
+			@Override
+			public void processNode(TT node) {
+				nodeConsumer.accept(node);
+			}
+		};
 	}
 
 	static <TT> DependencyGraphProcessingCallback<TT> processingCallback(
@@ -1,45 +1,580 @@
 package org.segg3r.graph.execution;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.segg3r.graph.DependencyGraph;
-import org.segg3r.graph.DependencyGraphElement;
+import org.segg3r.graph.FrozenDependencyGraph;
+import org.segg3r.graph.execution.metrics.DependencyGraphNodeTimings;
+import org.segg3r.graph.execution.metrics.DependencyGraphProcessingMetricsListener;
 import org.segg3r.graph.execution.step.SingleDependencyGraphProcessingStep;
 
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
-import static java.util.stream.Collectors.toSet;
+import static org.segg3r.graph.execution.DependencyGraphProcessingResult.resultOf;
 
 public class DependencyGraphProcessingContext<T> {
 
-	private final DependencyGraphProcessingCallback<T> callback;
-	private Map<DependencyGraphElement<T>, SingleDependencyGraphProcessingStep<T>> executionStepsCache =
-			Maps.newHashMap();
+	private static final int DEFAULT_BATCH_SIZE = 64;
+	private static final ThreadLocal<Continuation> CONTINUATION = ThreadLocal.withInitial(Continuation::new);
 
-	public DependencyGraphProcessingContext(DependencyGraph<T> graph, DependencyGraphProcessingCallback<T> callback) {
-		DependencyGraphElement<T> head = graph.getHead();
-		createStep(head);
-		head.getDependents().forEach(this::createStep);
+	private final FrozenDependencyGraph<T> graph;
+	private final DependencyGraph<T> growingGraph;
+	private final DependencyGraphAsyncProcessingCallback<T> callback;
+	private final Executor executor;
+	private final DependencyGraphProcessingMetricsListener<T> metricsListener;
+	private final SingleDependencyGraphProcessingStep<T>[] steps;
+	private final DependencyGraphNodeTimings timings;
+	private final Queue<SingleDependencyGraphProcessingStep<T>> grownSteps;
+	private final AtomicInteger nextNode;
+	private final AtomicInteger unfinishedSteps;
+	private final ToLongFunction<T> costEstimate;
+	private final Queue<SingleDependencyGraphProcessingStep<T>> readyQueue;
+	private final Runnable executeNextReady = this::executeNextReady;
+	private final BitSet affected;
+	private final DependencyGraphThrottle<T> throttle;
+	private final boolean failFast;
+	private final int maxAttempts;
+	private final long initialBackoffNanos;
+	private final long nodeTimeoutNanos;
+	private final long deadlineNanos;
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+	private final AtomicBoolean expired = new AtomicBoolean();
+	private final DependencyGraphBatchProcessingCallback<T> batchCallback;
+	private final int maxBatchSize;
+	private final long batchTimeBudgetNanos;
+	private final int maxDrainers;
+	private final Queue<SingleDependencyGraphProcessingStep<T>> batchQueue;
+	private final AtomicInteger activeDrainers = new AtomicInteger();
+	private final Runnable drainBatch = this::drainBatch;
+	private ScheduledFuture<?> deadline;
+	private final CompletableFuture<DependencyGraphProcessingResult<T>> completion = new CompletableFuture<>();
+	private long startNanos;
 
+	public DependencyGraphProcessingContext(FrozenDependencyGraph<T> graph, DependencyGraphAsyncProcessingCallback<T> callback,
+			DependencyGraphProcessingOptions<T> options) {
+		this(graph, null, callback, null, options);
+	}
+
+	public DependencyGraphProcessingContext(FrozenDependencyGraph<T> graph, DependencyGraphBatchProcessingCallback<T> batchCallback,
+			DependencyGraphProcessingOptions<T> options) {
+		this(graph, null, null, batchCallback, options);
+	}
+
+	// A growing run starts with the steps of the graph as it is now, expansions add further steps while it runs.
+	static <TT> DependencyGraphProcessingContext<TT> growingContext(DependencyGraph<TT> graph,
+			DependencyGraphAsyncProcessingCallback<TT> callback, DependencyGraphProcessingOptions<TT> options) {
+		return new DependencyGraphProcessingContext<>(graph.freeze(), graph, callback, null, options);
+	}
+
+	@SuppressWarnings("unchecked")
+	private DependencyGraphProcessingContext(FrozenDependencyGraph<T> graph, DependencyGraph<T> growingGraph,
+			DependencyGraphAsyncProcessingCallback<T> callback, DependencyGraphBatchProcessingCallback<T> batchCallback,
+			DependencyGraphProcessingOptions<T> options) {
+		this.graph = graph;
+		this.growingGraph = growingGraph;
 		this.callback = callback;
+		this.batchCallback = batchCallback;
+		this.executor = options.getExecutor();
+		this.metricsListener = options.getMetricsListener();
+
+		this.steps = (SingleDependencyGraphProcessingStep<T>[]) new SingleDependencyGraphProcessingStep<?>[graph.size()];
+		this.timings = new DependencyGraphNodeTimings(graph.size());
+		for (int node = 0; node < steps.length; node++) {
+			steps[node] = new SingleDependencyGraphProcessingStep<>(node, this);
+		}
+		this.grownSteps = growingGraph == null ? null : new ConcurrentLinkedQueue<>();
+		this.nextNode = new AtomicInteger(steps.length);
+		this.unfinishedSteps = new AtomicInteger(steps.length);
+		this.costEstimate = options.getCostEstimate().orElse(null);
+		this.readyQueue = options.getCostEstimate()
+				.map(this::prioritizedReadyQueue)
+				.orElse(null);
+		this.throttle = options.isThrottled()
+				? new DependencyGraphThrottle<>(graph, options.getMaxConcurrency(), options.getResourceClassifier().orElse(null),
+						options.getResourceLimits(), readyQueue == null ? byNode() : byPriority())
+				: null;
+		this.affected = options.getPreviouslyFinished()
+				.map(previouslyFinished -> affectedNodes(previouslyFinished, options.getChanged()))
+				.orElse(null);
+		this.failFast = options.getFailurePolicy() == DependencyGraphFailurePolicy.FAIL_FAST;
+		this.maxAttempts = options.getMaxAttempts();
+		this.initialBackoffNanos = options.getInitialBackoffNanos();
+		this.nodeTimeoutNanos = options.getNodeTimeoutNanos();
+		this.deadlineNanos = options.getDeadlineNanos();
+
+		this.maxBatchSize = options.isBatching() ? options.getMaxBatchSize() : batchCallback != null ? DEFAULT_BATCH_SIZE : 0;
+		this.batchTimeBudgetNanos = options.getBatchTimeBudgetNanos();
+		this.maxDrainers = Math.min(Runtime.getRuntime().availableProcessors(), options.getMaxConcurrency());
+		this.batchQueue = maxBatchSize == 0 ? null : readyQueue != null ? readyQueue : new ConcurrentLinkedQueue<>();
+	}
+
+	private BitSet affectedNodes(Predicate<T> previouslyFinished, Set<T> changed) {
+		BitSet affected = new BitSet(steps.length);
+		int[] pending = new int[steps.length];
+		int pendingCount = 0;
+		for (int node = 0; node < steps.length; node++) {
+			T entity = graph.getEntity(node);
+			if (changed.contains(entity) || !previouslyFinished.test(entity)) {
+				affected.set(node);
+				pending[pendingCount++] = node;
+			}
+		}
+
+		while (pendingCount > 0) {
+			int node = pending[--pendingCount];
+			for (int i = 0; i < graph.getDirectDependentCount(node); i++) {
+				int dependent = graph.getDirectDependent(node, i);
+				if (affected.get(dependent)) continue;
+
+				affected.set(dependent);
+				pending[pendingCount++] = dependent;
+			}
+		}
+
+		return affected;
+	}
+
+	// Upward rank of HLFET list scheduling: node cost plus the most expensive path to a sink.
+	// Node ids are topologically ordered, so dependents always come later than the node itself.
+	private Queue<SingleDependencyGraphProcessingStep<T>> prioritizedReadyQueue(ToLongFunction<T> costEstimate) {
+		for (int node = steps.length - 1; node >= 0; node--) {
+			long remainingCost = 0;
+			for (int i = 0; i < graph.getDirectDependentCount(node); i++) {
+				remainingCost = Math.max(remainingCost, steps[graph.getDirectDependent(node, i)].getPriority());
+			}
+			steps[node].setPriority(costEstimate.applyAsLong(graph.getEntity(node)) + remainingCost);
+		}
+
+		return new PriorityBlockingQueue<>(Math.max(steps.length, 1), byPriority());
+	}
+
+	private static <T> Comparator<SingleDependencyGraphProcessingStep<T>> byPriority() {
+		return Comparator.<SingleDependencyGraphProcessingStep<T>>comparingLong(SingleDependencyGraphProcessingStep::getPriority)
+				.reversed()
+				.thenComparingInt(SingleDependencyGraphProcessingStep::getNode);
+	}
+
+	private static <T> Comparator<SingleDependencyGraphProcessingStep<T>> byNode() {
+		return Comparator.comparingInt(SingleDependencyGraphProcessingStep::getNode);
+	}
+
+	public void start() {
+		startNanos = System.nanoTime();
+		if (steps.length == 0) {
+			completeRun();
+			return;
+		}
+		if (deadlineNanos > 0) {
+			deadline = schedule(this::expire, deadlineNanos);
+		}
+
+		if (affected != null) {
+			for (int node = affected.nextClearBit(0); node < steps.length; node = affected.nextClearBit(node + 1)) {
+				steps[node].skip();
+			}
+		}
+
+		for (int node = 0; node < steps.length; node++) {
+			if (graph.getDirectDependencyCount(node) == 0) submit(steps[node]);
+		}
+	}
+
+	private boolean isAffected(int node) {
+		return affected == null || node >= steps.length || affected.get(node);
+	}
+
+	public CompletableFuture<DependencyGraphProcessingResult<T>> getCompletion() {
+		return completion;
+	}
+
+	// The caller already sees the failure, so the remaining steps must not call back any more.
+	public void abort(Throwable throwable) {
+		completion.completeExceptionally(throwable);
+		cancel();
+	}
+
+	public void submit(SingleDependencyGraphProcessingStep<T> step) {
+		// Skipped steps release each other while being skipped, they must not run.
+		if (!isAffected(step.getNode())) return;
+
+		step.markReady();
+		if (throttle == null || throttle.offer(step)) schedule(step);
+	}
+
+	// Frees the capacity taken by an executed step, before its dependents become ready.
+	public void onStepProcessed(SingleDependencyGraphProcessingStep<T> step) {
+		if (throttle == null) return;
+
+		SingleDependencyGraphProcessingStep<T> admitted = throttle.release(step);
+		if (admitted != null) schedule(admitted);
+	}
+
+	private void schedule(SingleDependencyGraphProcessingStep<T> step) {
+		if (batchQueue != null) {
+			batchQueue.add(step);
+			activateDrainer();
+		} else if (readyQueue == null) {
+			if (!continueWith(step)) dispatch(step);
+		} else {
+			readyQueue.add(step);
+			dispatch(executeNextReady);
+		}
+	}
+
+	// A worker that just finished a step goes on with the first dependent it made ready instead of dispatching it,
+	// so a chain runs on one thread without any handoff. The other dependents are dispatched, from a fork-join worker
+	// they land on its own deque where idle workers steal them.
+	// A callback may run another graph on the same thread, so the state of the enclosing run is restored afterwards.
+	public void run(SingleDependencyGraphProcessingStep<T> step) {
+		Continuation continuation = CONTINUATION.get();
+		DependencyGraphProcessingContext<?> enclosingOwner = continuation.owner;
+		SingleDependencyGraphProcessingStep<?> enclosingCurrent = continuation.current;
+		SingleDependencyGraphProcessingStep<?> enclosingNext = continuation.next;
+		boolean enclosingReleasing = continuation.releasing;
+
+		continuation.owner = this;
+		continuation.releasing = false;
+		continuation.next = null;
+		try {
+			SingleDependencyGraphProcessingStep<T> next = step;
+			while (next != null) {
+				continuation.current = next;
+				next.executeGuarded();
+				next = takeContinuation(continuation);
+			}
+		} finally {
+			continuation.owner = enclosingOwner;
+			continuation.current = enclosingCurrent;
+			continuation.next = enclosingNext;
+			continuation.releasing = enclosingReleasing;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private SingleDependencyGraphProcessingStep<T> takeContinuation(Continuation continuation) {
+		SingleDependencyGraphProcessingStep<?> next = continuation.next;
+		continuation.next = null;
+		return (SingleDependencyGraphProcessingStep<T>) next;
 	}
 
-	public SingleDependencyGraphProcessingStep<T> getStep(DependencyGraphElement<T> element) {
-		return executionStepsCache.get(element);
+	// Only dependents released by the step this thread has just run continue inline. Everything else is dispatched:
+	// roots, dependents of steps completed by timers or by futures completed from within another callback.
+	private boolean continueWith(SingleDependencyGraphProcessingStep<T> step) {
+		Continuation continuation = CONTINUATION.get();
+		if (continuation.owner != this || !continuation.releasing || continuation.next != null) return false;
+
+		continuation.next = step;
+		return true;
 	}
 
-	public Set<SingleDependencyGraphProcessingStep<T>> getSteps(Set<DependencyGraphElement<T>> elements) {
-		return elements.stream()
-				.map(this::getStep)
-				.collect(toSet());
+	// A failure spreads through a worklist rather than recursion, so long chains of dependents can not overflow the stack.
+	// Each terminated dependent is visited once and only counted as completed after its own dependents were released.
+	public void releaseDependents(SingleDependencyGraphProcessingStep<T> step, DependencyGraphProcessingStepState state) {
+		Continuation continuation = CONTINUATION.get();
+		boolean releasing = continuation.owner == this && continuation.current == step;
+		if (releasing) continuation.releasing = true;
+		try {
+			Deque<SingleDependencyGraphProcessingStep<T>> terminated = releaseDirectDependents(step, state, null);
+			while (terminated != null && !terminated.isEmpty()) {
+				SingleDependencyGraphProcessingStep<T> dependent = terminated.pop();
+				releaseDirectDependents(dependent, dependent.getState(), terminated);
+				onStepCompleted();
+			}
+		} finally {
+			if (releasing) continuation.releasing = false;
+		}
 	}
 
-	public DependencyGraphProcessingCallback<T> getCallback() {
-		return callback;
+	private Deque<SingleDependencyGraphProcessingStep<T>> releaseDirectDependents(SingleDependencyGraphProcessingStep<T> step,
+			DependencyGraphProcessingStepState state, Deque<SingleDependencyGraphProcessingStep<T>> terminated) {
+		int node = step.getNode();
+		for (int i = 0; node < steps.length && i < graph.getDirectDependentCount(node); i++) {
+			terminated = releaseDependent(steps[graph.getDirectDependent(node, i)], state, terminated);
+		}
+		if (growingGraph == null) return terminated;
+
+		List<SingleDependencyGraphProcessingStep<T>> addedDependents = step.releaseAddedDependents();
+		for (int i = 0; addedDependents != null && i < addedDependents.size(); i++) {
+			terminated = releaseDependent(addedDependents.get(i), state, terminated);
+		}
+
+		return terminated;
 	}
 
-	private void createStep(DependencyGraphElement<T> element) {
-		executionStepsCache.put(element, new SingleDependencyGraphProcessingStep<>(element, this));
+	private Deque<SingleDependencyGraphProcessingStep<T>> releaseDependent(SingleDependencyGraphProcessingStep<T> dependent,
+			DependencyGraphProcessingStepState state, Deque<SingleDependencyGraphProcessingStep<T>> terminated) {
+		if (!dependent.onDependencyCompleted(state)) return terminated;
+
+		if (terminated == null) terminated = new ArrayDeque<>();
+		terminated.push(dependent);
+		return terminated;
+	}
+
+	// An added step is held by the expansion that adds it, so it can be wired up before it may run.
+	public SingleDependencyGraphProcessingStep<T> addStep(T entity) {
+		int node = nextNode.getAndIncrement();
+		timings.ensureCapacity(node);
+		SingleDependencyGraphProcessingStep<T> step = new SingleDependencyGraphProcessingStep<>(node, entity, this);
+		if (costEstimate != null) step.setPriority(costEstimate.applyAsLong(entity));
+		unfinishedSteps.incrementAndGet();
+		grownSteps.add(step);
+		return step;
+	}
+
+	// The dependent must be held. The edge counts as one more unfinished dependency until the dependency releases it,
+	// right away if the dependency has already released its dependents.
+	public void addDependency(SingleDependencyGraphProcessingStep<T> dependent, SingleDependencyGraphProcessingStep<T> dependency) {
+		dependent.hold();
+		if (!dependency.addDependent(dependent)) release(dependent, dependency.getState());
+	}
+
+	// Completes one unfinished dependency of the step the same way a dependency that is done releases it.
+	public void release(SingleDependencyGraphProcessingStep<T> step, DependencyGraphProcessingStepState state) {
+		if (!step.onDependencyCompleted(state)) return;
+
+		releaseDependents(step, step.getState());
+		onStepCompleted();
+	}
+
+	// An expansion counts as an unfinished step while it is open and completes it when closed,
+	// so the run can not complete while steps may still be added.
+	public boolean holdCompletion() {
+		int unfinished;
+		while ((unfinished = unfinishedSteps.get()) > 0) {
+			if (unfinishedSteps.compareAndSet(unfinished, unfinished + 1)) return true;
+		}
+
+		return false;
+	}
+
+	// Every prioritized submission dispatches exactly one task, which runs the most important ready step at that time.
+	private void executeNextReady() {
+		SingleDependencyGraphProcessingStep<T> step = readyQueue.poll();
+		if (step != null) step.executeGuarded();
+	}
+
+	private void activateDrainer() {
+		int active;
+		while ((active = activeDrainers.get()) < maxDrainers) {
+			if (activeDrainers.compareAndSet(active, active + 1)) {
+				dispatch(drainBatch);
+				return;
+			}
+		}
+	}
+
+	// Runs one batch per task. A drainer hands over to a fresh task while work remains, so a long queue
+	// does not monopolize the worker; it only retires once the queue is seen empty after it stopped counting as active.
+	private void drainBatch() {
+		while (true) {
+			try {
+				if (batchCallback == null) {
+					executeBatch();
+				} else {
+					processBatch();
+				}
+			} catch (Throwable throwable) {
+				abort(throwable);
+			}
+
+			if (!batchQueue.isEmpty()) {
+				dispatch(drainBatch);
+				return;
+			}
+
+			activeDrainers.decrementAndGet();
+			if (batchQueue.isEmpty() || !reactivateDrainer()) return;
+		}
+	}
+
+	private boolean reactivateDrainer() {
+		int active;
+		while ((active = activeDrainers.get()) < maxDrainers) {
+			if (activeDrainers.compareAndSet(active, active + 1)) return true;
+		}
+
+		return false;
+	}
+
+	private void executeBatch() {
+		long batchStartNanos = batchTimeBudgetNanos > 0 ? System.nanoTime() : 0;
+		for (int executed = 0; executed < maxBatchSize; executed++) {
+			SingleDependencyGraphProcessingStep<T> step = batchQueue.poll();
+			if (step == null) return;
+
+			step.executeGuarded();
+			if (batchTimeBudgetNanos > 0 && System.nanoTime() - batchStartNanos >= batchTimeBudgetNanos) return;
+		}
+	}
+
+	private void processBatch() {
+		List<SingleDependencyGraphProcessingStep<T>> batch = Lists.newArrayListWithCapacity(maxBatchSize);
+		List<T> nodes = Lists.newArrayListWithCapacity(maxBatchSize);
+		SingleDependencyGraphProcessingStep<T> step;
+		while (batch.size() < maxBatchSize && (step = batchQueue.poll()) != null) {
+			if (!step.start()) continue;
+
+			batch.add(step);
+			nodes.add(step.getEntity());
+		}
+		if (batch.isEmpty()) return;
+
+		boolean succeeded;
+		try {
+			batchCallback.processNodes(nodes);
+			succeeded = true;
+		} catch (Exception e) {
+			succeeded = false;
+		}
+
+		for (SingleDependencyGraphProcessingStep<T> processed : batch) processed.finish(succeeded);
+	}
+
+	// Dispatched tasks are allocated once per run and report their own failures, so a dispatch allocates nothing.
+	private void dispatch(Runnable task) {
+		executor.execute(task);
+	}
+
+	public void onStepFailed() {
+		if (failFast) cancel();
+	}
+
+	// Steps that have not started yet notice the cancellation themselves, running ones are interrupted.
+	public void cancel() {
+		if (!cancelled.compareAndSet(false, true)) return;
+
+		for (SingleDependencyGraphProcessingStep<T> step : steps) step.cancel();
+		if (grownSteps != null) {
+			for (SingleDependencyGraphProcessingStep<T> step : grownSteps) step.cancel();
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled.get();
+	}
+
+	// Running steps time out right away, the remaining ones time out as soon as they would start.
+	private void expire() {
+		if (!expired.compareAndSet(false, true)) return;
+
+		for (SingleDependencyGraphProcessingStep<T> step : steps) step.timeOut();
+		if (grownSteps != null) {
+			for (SingleDependencyGraphProcessingStep<T> step : grownSteps) step.timeOut();
+		}
+	}
+
+	public boolean isExpired() {
+		return expired.get();
+	}
+
+	public ScheduledFuture<?> scheduleTimeout(SingleDependencyGraphProcessingStep<T> step) {
+		if (nodeTimeoutNanos <= 0) return null;
+
+		return schedule(step::timeOut, nodeTimeoutNanos);
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public void scheduleRetry(Runnable attempt, int attempts) {
+		long backoffNanos = initialBackoffNanos << Math.min(attempts - 1, 20);
+		schedule(() -> dispatch(attempt), backoffNanos);
+	}
+
+	// The shared scheduler swallows what its tasks throw, so a failing task aborts the run instead of leaving it unfinished.
+	private ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+		return DependencyGraphExecutors.sharedScheduler().schedule(() -> {
+			try {
+				task.run();
+			} catch (Throwable throwable) {
+				abort(throwable);
+			}
+		}, delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void onStepCompleted() {
+		if (unfinishedSteps.decrementAndGet() == 0) {
+			completeRun();
+		}
+	}
+
+	private void completeRun() {
+		long endNanos = System.nanoTime();
+		if (deadline != null) deadline.cancel(false);
+		FrozenDependencyGraph<T> processedGraph = growingGraph == null ? graph : growingGraph.freeze();
+
+		DependencyGraphProcessingResult<T> result = growingGraph == null
+				? resultOf(processedGraph, timings, startNanos, endNanos)
+				: resultOf(processedGraph, timings, stepNodes(processedGraph), startNanos, endNanos);
+		metricsListener.onRunCompleted(result);
+		completion.complete(result);
+	}
+
+	// The graph of a growing run is frozen anew at its end, which numbers its nodes differently than the steps.
+	private int[] stepNodes(FrozenDependencyGraph<T> processedGraph) {
+		Map<T, Integer> stepNodesByEntity = Maps.newHashMapWithExpectedSize(processedGraph.size());
+		for (SingleDependencyGraphProcessingStep<T> step : steps) stepNodesByEntity.put(step.getEntity(), step.getNode());
+		for (SingleDependencyGraphProcessingStep<T> step : grownSteps) stepNodesByEntity.put(step.getEntity(), step.getNode());
+
+		int[] stepNodes = new int[processedGraph.size()];
+		for (int node = 0; node < stepNodes.length; node++) stepNodes[node] = stepNodesByEntity.get(processedGraph.getEntity(node));
+		return stepNodes;
+	}
+
+	public SingleDependencyGraphProcessingStep<T> getStep(int node) {
+		return steps[node];
+	}
+
+	public FrozenDependencyGraph<T> getGraph() {
+		return graph;
+	}
+
+	public CompletionStage<?> processNode(T node) {
+		return callback.processNode(node);
+	}
+
+	public void onNodeStateChanged(T node, DependencyGraphProcessingStepState state) {
+		if (callback != null) {
+			callback.onNodeStateChanged(node, state);
+		} else {
+			batchCallback.onNodeStateChanged(node, state);
+		}
+	}
+
+	public DependencyGraphProcessingMetricsListener<T> getMetricsListener() {
+		return metricsListener;
+	}
+
+	public DependencyGraphNodeTimings getTimings() {
+		return timings;
+	}
+
+	private static final class Continuation {
+
+		private DependencyGraphProcessingContext<?> owner;
+		private SingleDependencyGraphProcessingStep<?> current;
+		private SingleDependencyGraphProcessingStep<?> next;
+		private boolean releasing;
+
 	}
 
 }
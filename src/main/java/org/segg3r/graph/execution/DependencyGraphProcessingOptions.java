@@ -0,0 +1,277 @@
+package org.segg3r.graph.execution;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.segg3r.graph.execution.journal.DependencyGraphJournal;
+import org.segg3r.graph.execution.metrics.DependencyGraphNodeMetrics;
+import org.segg3r.graph.execution.metrics.DependencyGraphProcessingMetricsListener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import static org.segg3r.graph.execution.DependencyGraphExecutors.defaultExecutor;
+import static org.segg3r.graph.execution.DependencyGraphProcessingStepState.FINISHED;
+import static org.segg3r.graph.execution.metrics.DependencyGraphProcessingMetricsListener.both;
+import static org.segg3r.graph.execution.metrics.DependencyGraphProcessingMetricsListener.noMetrics;
+
+public class DependencyGraphProcessingOptions<T> {
+
+	public static <TT> DependencyGraphProcessingOptions<TT> defaultOptions() {
+		return DependencyGraphProcessingOptions.<TT>processingOptions().build();
+	}
+
+	public static <TT> Builder<TT> processingOptions() {
+		return new Builder<>();
+	}
+
+	private final Executor executor;
+	private final DependencyGraphProcessingMetricsListener<T> metricsListener;
+	private final ToLongFunction<T> costEstimate;
+	private final Predicate<T> previouslyFinished;
+	private final Set<T> changed;
+	private final int maxConcurrency;
+	private final Function<T, String> resourceClassifier;
+	private final Map<String, Integer> resourceLimits;
+	private final DependencyGraphFailurePolicy failurePolicy;
+	private final int maxAttempts;
+	private final long initialBackoffNanos;
+	private final long nodeTimeoutNanos;
+	private final long deadlineNanos;
+	private final int maxBatchSize;
+	private final long batchTimeBudgetNanos;
+
+	private DependencyGraphProcessingOptions(Builder<T> builder) {
+		this.executor = builder.executor;
+		this.metricsListener = builder.journal == null ? builder.metricsListener : both(builder.metricsListener, builder.journal);
+		this.costEstimate = builder.costEstimate;
+		this.previouslyFinished = builder.previouslyFinished;
+		this.changed = builder.changed;
+		this.maxConcurrency = builder.maxConcurrency;
+		this.resourceClassifier = builder.resourceClassifier;
+		this.resourceLimits = Collections.unmodifiableMap(Maps.newHashMap(builder.resourceLimits));
+		this.failurePolicy = builder.failurePolicy;
+		this.maxAttempts = builder.maxAttempts;
+		this.initialBackoffNanos = builder.initialBackoffNanos;
+		this.nodeTimeoutNanos = builder.nodeTimeoutNanos;
+		this.deadlineNanos = builder.deadlineNanos;
+		this.maxBatchSize = builder.maxBatchSize;
+		this.batchTimeBudgetNanos = builder.batchTimeBudgetNanos;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	public DependencyGraphProcessingMetricsListener<T> getMetricsListener() {
+		return metricsListener;
+	}
+
+	public Optional<ToLongFunction<T>> getCostEstimate() {
+		return Optional.ofNullable(costEstimate);
+	}
+
+	public Optional<Predicate<T>> getPreviouslyFinished() {
+		return Optional.ofNullable(previouslyFinished);
+	}
+
+	public Set<T> getChanged() {
+		return changed;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public Optional<Function<T, String>> getResourceClassifier() {
+		return Optional.ofNullable(resourceClassifier);
+	}
+
+	public Map<String, Integer> getResourceLimits() {
+		return resourceLimits;
+	}
+
+	public boolean isThrottled() {
+		return maxConcurrency < Integer.MAX_VALUE || (resourceClassifier != null && !resourceLimits.isEmpty());
+	}
+
+	public DependencyGraphFailurePolicy getFailurePolicy() {
+		return failurePolicy;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public long getInitialBackoffNanos() {
+		return initialBackoffNanos;
+	}
+
+	public long getNodeTimeoutNanos() {
+		return nodeTimeoutNanos;
+	}
+
+	public long getDeadlineNanos() {
+		return deadlineNanos;
+	}
+
+	public boolean isBatching() {
+		return maxBatchSize > 0;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public long getBatchTimeBudgetNanos() {
+		return batchTimeBudgetNanos;
+	}
+
+	public static class Builder<T> {
+
+		private Executor executor = defaultExecutor();
+		private DependencyGraphProcessingMetricsListener<T> metricsListener = noMetrics();
+		private ToLongFunction<T> costEstimate;
+		private Predicate<T> previouslyFinished;
+		private DependencyGraphJournal<T> journal;
+		private Set<T> changed = Collections.emptySet();
+		private int maxConcurrency = Integer.MAX_VALUE;
+		private Function<T, String> resourceClassifier;
+		private final Map<String, Integer> resourceLimits = Maps.newHashMap();
+		private DependencyGraphFailurePolicy failurePolicy = DependencyGraphFailurePolicy.CONTINUE_INDEPENDENT;
+		private int maxAttempts = 1;
+		private long initialBackoffNanos;
+		private long nodeTimeoutNanos;
+		private long deadlineNanos;
+		private int maxBatchSize;
+		private long batchTimeBudgetNanos;
+
+		private Builder() {}
+
+		public Builder<T> executor(Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		public Builder<T> metricsListener(DependencyGraphProcessingMetricsListener<T> metricsListener) {
+			this.metricsListener = metricsListener;
+			return this;
+		}
+
+		// Ready nodes are dispatched by the longest remaining path to a sink, weighted by the estimated node costs.
+		public Builder<T> criticalPathPriority(ToLongFunction<T> costEstimate) {
+			this.costEstimate = costEstimate;
+			return this;
+		}
+
+		public Builder<T> criticalPathPriority(DependencyGraphProcessingResult<T> previousRun) {
+			long defaultCost = Math.max(1, (long) previousRun.getNodeMetrics().stream()
+					.filter(DependencyGraphNodeMetrics::isExecuted)
+					.mapToLong(DependencyGraphNodeMetrics::getRunNanos)
+					.average()
+					.orElse(1));
+
+			return criticalPathPriority(node -> previousRun.getNodeMetrics(node)
+					.filter(DependencyGraphNodeMetrics::isExecuted)
+					.map(DependencyGraphNodeMetrics::getRunNanos)
+					.orElse(defaultCost));
+		}
+
+		// Only changed nodes, nodes that did not finish in the previous run and all of their dependents are processed,
+		// every other node is considered FINISHED straight away.
+		public Builder<T> incremental(DependencyGraphProcessingResult<T> previousRun, Collection<? extends T> changed) {
+			this.previouslyFinished = node -> previousRun.getState(node).map(state -> state == FINISHED).orElse(false);
+			this.changed = Sets.newHashSet(changed);
+			return this;
+		}
+
+		// Records every state transition of the run, the journal is flushed once the run is completed.
+		public Builder<T> journal(DependencyGraphJournal<T> journal) {
+			this.journal = journal;
+			return this;
+		}
+
+		// Skips the nodes the journal had seen finished when it was opened and keeps journaling into it.
+		public Builder<T> resumeFrom(DependencyGraphJournal<T> journal) {
+			this.previouslyFinished = journal::isFinished;
+			this.changed = Collections.emptySet();
+			return journal(journal);
+		}
+
+		public Builder<T> maxConcurrency(int maxConcurrency) {
+			if (maxConcurrency < 1) throw new IllegalArgumentException("Concurrency limit must be positive, got " + maxConcurrency);
+
+			this.maxConcurrency = maxConcurrency;
+			return this;
+		}
+
+		public Builder<T> resourceClassifier(Function<T, String> resourceClassifier) {
+			this.resourceClassifier = resourceClassifier;
+			return this;
+		}
+
+		// Classes without a limit are only bound by the overall concurrency limit.
+		public Builder<T> resourceLimit(String resourceClass, int limit) {
+			if (limit < 1) throw new IllegalArgumentException("Limit of " + resourceClass + " must be positive, got " + limit);
+
+			this.resourceLimits.put(resourceClass, limit);
+			return this;
+		}
+
+		public Builder<T> failurePolicy(DependencyGraphFailurePolicy failurePolicy) {
+			this.failurePolicy = failurePolicy;
+			return this;
+		}
+
+		// A failed node is processed again after a backoff that doubles with every attempt.
+		public Builder<T> retry(int maxAttempts, long initialBackoff, TimeUnit unit) {
+			if (maxAttempts < 1) throw new IllegalArgumentException("Attempt count must be positive, got " + maxAttempts);
+
+			this.maxAttempts = maxAttempts;
+			this.initialBackoffNanos = unit.toNanos(initialBackoff);
+			return this;
+		}
+
+		// Counted from the start of the node, retries included.
+		public Builder<T> nodeTimeout(long timeout, TimeUnit unit) {
+			if (timeout <= 0) throw new IllegalArgumentException("Node timeout must be positive, got " + timeout);
+
+			this.nodeTimeoutNanos = unit.toNanos(timeout);
+			return this;
+		}
+
+		// Counted from the start of the run, nodes still unfinished by then are TIMED_OUT.
+		public Builder<T> deadline(long deadline, TimeUnit unit) {
+			if (deadline <= 0) throw new IllegalArgumentException("Deadline must be positive, got " + deadline);
+
+			this.deadlineNanos = unit.toNanos(deadline);
+			return this;
+		}
+
+		public Builder<T> batching(int maxBatchSize) {
+			return batching(maxBatchSize, 0, TimeUnit.NANOSECONDS);
+		}
+
+		// Ready nodes are run in batches on a single task each, a batch ends when it is full or its time budget is spent.
+		public Builder<T> batching(int maxBatchSize, long timeBudget, TimeUnit unit) {
+			if (maxBatchSize < 1) throw new IllegalArgumentException("Batch size must be positive, got " + maxBatchSize);
+
+			this.maxBatchSize = maxBatchSize;
+			this.batchTimeBudgetNanos = unit.toNanos(timeBudget);
+			return this;
+		}
+
+		public DependencyGraphProcessingOptions<T> build() {
+			return new DependencyGraphProcessingOptions<>(this);
+		}
+
+	}
+
+}
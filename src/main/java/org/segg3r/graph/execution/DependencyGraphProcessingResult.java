@@ -0,0 +1,147 @@
+package org.segg3r.graph.execution;
+
+import com.google.common.collect.Lists;
+import org.segg3r.graph.FrozenDependencyGraph;
+import org.segg3r.graph.execution.metrics.DependencyGraphNodeMetrics;
+import org.segg3r.graph.execution.metrics.DependencyGraphNodeTimings;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public class DependencyGraphProcessingResult<T> {
+
+	public static <TT> DependencyGraphProcessingResult<TT> resultOf(FrozenDependencyGraph<TT> graph,
+			DependencyGraphNodeTimings timings, long startNanos, long endNanos) {
+		return new DependencyGraphProcessingResult<>(graph, timings, null, startNanos, endNanos);
+	}
+
+	// The step nodes map the node ids of the graph to the ids its steps recorded their timings by.
+	public static <TT> DependencyGraphProcessingResult<TT> resultOf(FrozenDependencyGraph<TT> graph,
+			DependencyGraphNodeTimings timings, int[] stepNodes, long startNanos, long endNanos) {
+		return new DependencyGraphProcessingResult<>(graph, timings, stepNodes, startNanos, endNanos);
+	}
+
+	// Timings stay in the primitive arrays the steps recorded them in, metrics objects are only built once read.
+	private final FrozenDependencyGraph<T> graph;
+	private final DependencyGraphNodeTimings timings;
+	private final int[] stepNodes;
+	private final long startNanos;
+	private final long endNanos;
+	private volatile List<DependencyGraphNodeMetrics<T>> nodes;
+	private volatile List<T> criticalPath;
+
+	private DependencyGraphProcessingResult(FrozenDependencyGraph<T> graph, DependencyGraphNodeTimings timings, int[] stepNodes,
+			long startNanos, long endNanos) {
+		this.graph = graph;
+		this.timings = timings;
+		this.stepNodes = stepNodes;
+		this.startNanos = startNanos;
+		this.endNanos = endNanos;
+	}
+
+	public Collection<DependencyGraphNodeMetrics<T>> getNodeMetrics() {
+		List<DependencyGraphNodeMetrics<T>> nodes = this.nodes;
+		if (nodes == null) {
+			List<DependencyGraphNodeMetrics<T>> metrics = Lists.newArrayListWithCapacity(graph.size());
+			for (int node = 0; node < graph.size(); node++) metrics.add(timings.metricsOf(stepNode(node), graph.getEntity(node)));
+			this.nodes = nodes = Collections.unmodifiableList(metrics);
+		}
+
+		return nodes;
+	}
+
+	public Optional<DependencyGraphNodeMetrics<T>> getNodeMetrics(T node) {
+		int index = graph.indexOf(node);
+		return index < 0 ? Optional.empty() : Optional.of(timings.metricsOf(stepNode(index), graph.getEntity(index)));
+	}
+
+	public Optional<DependencyGraphProcessingStepState> getState(T node) {
+		int index = graph.indexOf(node);
+		return index < 0 ? Optional.empty() : Optional.of(timings.getState(stepNode(index)));
+	}
+
+	public boolean isSuccessful() {
+		for (int node = 0; node < graph.size(); node++) {
+			if (timings.getState(stepNode(node)) != DependencyGraphProcessingStepState.FINISHED) return false;
+		}
+
+		return true;
+	}
+
+	public List<T> getCriticalPath() {
+		List<T> criticalPath = this.criticalPath;
+		if (criticalPath == null) this.criticalPath = criticalPath = Collections.unmodifiableList(criticalPath());
+		return criticalPath;
+	}
+
+	// Walks back from the node that finished last, always through the dependency that finished last,
+	// i.e. the one that actually released the node.
+	private List<T> criticalPath() {
+		int current = -1;
+		for (int node = 0; node < graph.size(); node++) {
+			if (timings.isExecuted(stepNode(node)) && (current < 0 || endNanosOf(node) > endNanosOf(current))) {
+				current = node;
+			}
+		}
+
+		List<T> path = Lists.newArrayList();
+		while (current >= 0) {
+			path.add(graph.getEntity(current));
+
+			int releasedBy = -1;
+			for (int i = 0; i < graph.getDirectDependencyCount(current); i++) {
+				int dependency = graph.getDirectDependency(current, i);
+				if (releasedBy < 0 || endNanosOf(dependency) > endNanosOf(releasedBy)) {
+					releasedBy = dependency;
+				}
+			}
+			current = releasedBy;
+		}
+
+		return Lists.reverse(path);
+	}
+
+	public long getCriticalPathNanos() {
+		return getCriticalPath().stream()
+				.mapToLong(node -> timings.getRunNanos(stepNode(graph.indexOf(node))))
+				.sum();
+	}
+
+	public long getWallNanos() {
+		return endNanos - startNanos;
+	}
+
+	public long getBusyNanos() {
+		long busyNanos = 0;
+		for (int node = 0; node < graph.size(); node++) {
+			if (timings.isExecuted(stepNode(node))) busyNanos += timings.getRunNanos(stepNode(node));
+		}
+
+		return busyNanos;
+	}
+
+	public double getAverageParallelism() {
+		long wallNanos = getWallNanos();
+		return wallNanos == 0 ? 0 : (double) getBusyNanos() / wallNanos;
+	}
+
+	public double getUtilization(int workers) {
+		return getAverageParallelism() / workers;
+	}
+
+	private long endNanosOf(int node) {
+		return timings.getEndNanos(stepNode(node));
+	}
+
+	private int stepNode(int node) {
+		return stepNodes == null ? node : stepNodes[node];
+	}
+
+	@Override
+	public String toString() {
+		return "Processed " + graph.size() + " nodes in " + getWallNanos() + "ns, critical path " + getCriticalPath();
+	}
+
+}
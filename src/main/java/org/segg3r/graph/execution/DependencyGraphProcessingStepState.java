@@ -2,6 +2,6 @@ package org.segg3r.graph.execution;
 
 public enum DependencyGraphProcessingStepState {
 
-	WAITING, RUNNING, FINISHED, FAILED
+	WAITING, RUNNING, FINISHED, FAILED, CANCELLED, TIMED_OUT
 
 }
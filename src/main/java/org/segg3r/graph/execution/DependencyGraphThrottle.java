@@ -0,0 +1,110 @@
+package org.segg3r.graph.execution;
+
+import com.google.common.collect.Maps;
+import org.segg3r.graph.FrozenDependencyGraph;
+import org.segg3r.graph.execution.step.SingleDependencyGraphProcessingStep;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.function.Function;
+
+// Admits ready steps only while both the global limit and the limit of their resource class allow it.
+// Steps that do not fit wait here instead of occupying a worker, and are admitted by the step that frees the capacity.
+class DependencyGraphThrottle<T> {
+
+	private static final int UNCLASSIFIED = -1;
+
+	private final int maxConcurrency;
+	private final Function<T, String> resourceClassifier;
+	private final Map<String, Integer> classIds = Maps.newHashMap();
+	private final int[] classOfNode;
+	private final int[] classLimits;
+	private final int[] classRunning;
+	private final Queue<SingleDependencyGraphProcessingStep<T>>[] classWaiting;
+	private final Comparator<SingleDependencyGraphProcessingStep<T>> order;
+	private int running;
+
+	// The last queue holds unclassified steps and steps of classes without a limit.
+	@SuppressWarnings("unchecked")
+	DependencyGraphThrottle(FrozenDependencyGraph<T> graph, int maxConcurrency, Function<T, String> resourceClassifier,
+			Map<String, Integer> resourceLimits, Comparator<SingleDependencyGraphProcessingStep<T>> order) {
+		this.maxConcurrency = maxConcurrency;
+		this.resourceClassifier = resourceClassifier;
+		this.order = order;
+
+		this.classLimits = new int[resourceLimits.size()];
+		for (Map.Entry<String, Integer> limit : resourceLimits.entrySet()) {
+			classLimits[classIds.size()] = limit.getValue();
+			classIds.put(limit.getKey(), classIds.size());
+		}
+		this.classRunning = new int[classLimits.length];
+
+		this.classOfNode = new int[graph.size()];
+		for (int node = 0; node < classOfNode.length; node++) classOfNode[node] = classify(graph.getEntity(node));
+
+		this.classWaiting = (Queue<SingleDependencyGraphProcessingStep<T>>[]) new Queue<?>[classLimits.length + 1];
+		for (int i = 0; i < classWaiting.length; i++) classWaiting[i] = new PriorityQueue<>(order);
+	}
+
+	// Either admits the step right away or keeps it until capacity is released.
+	synchronized boolean offer(SingleDependencyGraphProcessingStep<T> step) {
+		int resourceClass = classOf(step);
+		if (fits(resourceClass)) {
+			admit(step);
+			return true;
+		}
+
+		classWaiting[queueOf(resourceClass)].add(step);
+		return false;
+	}
+
+	// A released step frees exactly one slot, so at most one waiting step can be admitted in its place.
+	synchronized SingleDependencyGraphProcessingStep<T> release(SingleDependencyGraphProcessingStep<T> step) {
+		running--;
+		int resourceClass = classOf(step);
+		if (resourceClass != UNCLASSIFIED) classRunning[resourceClass]--;
+
+		Queue<SingleDependencyGraphProcessingStep<T>> best = null;
+		for (int queue = 0; queue < classWaiting.length; queue++) {
+			SingleDependencyGraphProcessingStep<T> head = classWaiting[queue].peek();
+			if (head == null || !fits(classOf(head))) continue;
+			if (best == null || order.compare(head, best.peek()) < 0) {
+				best = classWaiting[queue];
+			}
+		}
+		if (best == null) return null;
+
+		SingleDependencyGraphProcessingStep<T> admitted = best.poll();
+		admit(admitted);
+		return admitted;
+	}
+
+	// Steps added while processing are not numbered in the graph, they are classified whenever needed.
+	private int classOf(SingleDependencyGraphProcessingStep<T> step) {
+		int node = step.getNode();
+		return node < classOfNode.length ? classOfNode[node] : classify(step.getEntity());
+	}
+
+	private int classify(T entity) {
+		String resourceClass = resourceClassifier == null ? null : resourceClassifier.apply(entity);
+		return classIds.getOrDefault(resourceClass, UNCLASSIFIED);
+	}
+
+	private boolean fits(int resourceClass) {
+		return running < maxConcurrency
+				&& (resourceClass == UNCLASSIFIED || classRunning[resourceClass] < classLimits[resourceClass]);
+	}
+
+	private void admit(SingleDependencyGraphProcessingStep<T> step) {
+		running++;
+		int resourceClass = classOf(step);
+		if (resourceClass != UNCLASSIFIED) classRunning[resourceClass]++;
+	}
+
+	private int queueOf(int resourceClass) {
+		return resourceClass == UNCLASSIFIED ? classLimits.length : resourceClass;
+	}
+
+}
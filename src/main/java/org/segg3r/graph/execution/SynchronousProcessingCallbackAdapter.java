@@ -0,0 +1,27 @@
+package org.segg3r.graph.execution;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+class SynchronousProcessingCallbackAdapter<T> implements DependencyGraphAsyncProcessingCallback<T> {
+
+	private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+	private final DependencyGraphProcessingCallback<T> callback;
+
+	SynchronousProcessingCallbackAdapter(DependencyGraphProcessingCallback<T> callback) {
+		this.callback = callback;
+	}
+
+	@Override
+	public CompletionStage<?> processNode(T node) {
+		callback.processNode(node);
+		return COMPLETED;
+	}
+
+	@Override
+	public void onNodeStateChanged(T node, DependencyGraphProcessingStepState state) {
+		callback.onNodeStateChanged(node, state);
+	}
+
+}
@@ -0,0 +1,180 @@
+package org.segg3r.graph.execution.journal;
+
+import com.google.common.collect.Maps;
+import com.google.common.io.CountingInputStream;
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+import org.segg3r.graph.execution.DependencyGraphProcessingStepState;
+import org.segg3r.graph.execution.metrics.DependencyGraphProcessingMetricsListener;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.segg3r.graph.execution.DependencyGraphExecutors.defaultExecutor;
+import static org.segg3r.graph.execution.DependencyGraphExecutors.sharedScheduler;
+import static org.segg3r.graph.execution.DependencyGraphProcessingStepState.FINISHED;
+import static org.segg3r.graph.execution.DependencyGraphProcessingStepState.RUNNING;
+
+// Append-only log of node state transitions. Records are buffered and written with a single fsync per batch,
+// so a crash loses at most the last batch and a torn record at the end of the file is ignored on open.
+public class DependencyGraphJournal<T> implements DependencyGraphProcessingMetricsListener<T>, Closeable {
+
+	private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+
+	public static <TT> DependencyGraphJournal<TT> openJournal(Path file) {
+		return openJournal(file, String::valueOf, DEFAULT_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	// Nodes are identified by their key, which has to stay the same between the journaled run and the resumed one.
+	public static <TT> DependencyGraphJournal<TT> openJournal(Path file, Function<TT, String> nodeKey,
+			long flushInterval, TimeUnit unit) {
+		try {
+			Map<String, DependencyGraphProcessingStepState> states = Maps.newHashMap();
+			long validLength = readStates(file, states);
+			FileChannel channel = FileChannel.open(file, CREATE, WRITE, APPEND);
+			channel.truncate(validLength);
+			return new DependencyGraphJournal<>(channel, nodeKey, states, unit.toNanos(flushInterval));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open journal " + file, e);
+		}
+	}
+
+	// The last record of a node wins, a node that started again after it had finished is not finished anymore.
+	// Returns the length of the complete records, a torn record is cut off before new ones are appended.
+	private static long readStates(Path file, Map<String, DependencyGraphProcessingStepState> states) throws IOException {
+		if (!Files.exists(file)) return 0;
+
+		long validLength = 0;
+		try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+				DataInputStream input = new DataInputStream(counter)) {
+			while (true) {
+				String state = input.readUTF();
+				String key = input.readUTF();
+				states.put(key, DependencyGraphProcessingStepState.valueOf(state));
+				validLength = counter.getCount();
+			}
+		} catch (EOFException e) {
+			return validLength;
+		}
+	}
+
+	private final FileChannel channel;
+	private final Function<T, String> nodeKey;
+	private final Map<String, DependencyGraphProcessingStepState> journaledStates;
+	private final ScheduledFuture<?> flushing;
+	private final Object flushLock = new Object();
+	private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private DataOutputStream output = new DataOutputStream(buffer);
+	private volatile IOException failure;
+
+	private DependencyGraphJournal(FileChannel channel, Function<T, String> nodeKey,
+			Map<String, DependencyGraphProcessingStepState> journaledStates, long flushIntervalNanos) {
+		this.channel = channel;
+		this.nodeKey = nodeKey;
+		this.journaledStates = journaledStates;
+		// The fsync must not hold up the timers of running graphs, so the shared scheduler only hands it over.
+		this.flushing = sharedScheduler().scheduleWithFixedDelay(() -> defaultExecutor().execute(this::flushQuietly),
+				flushIntervalNanos, flushIntervalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	// Refers to the journal as it was when opened, not to the records of the current run.
+	public boolean isFinished(T node) {
+		return journaledStates.get(nodeKey.apply(node)) == FINISHED;
+	}
+
+	@Override
+	public void onNodeStarted(T node, long queueWaitNanos) {
+		append(RUNNING, node);
+	}
+
+	@Override
+	public void onNodeCompleted(T node, DependencyGraphProcessingStepState state, long runNanos) {
+		append(state, node);
+	}
+
+	@Override
+	public void onRunCompleted(DependencyGraphProcessingResult<T> result) {
+		flush();
+	}
+
+	private void append(DependencyGraphProcessingStepState state, T node) {
+		checkFailure();
+		String key = nodeKey.apply(node);
+		synchronized (this) {
+			try {
+				output.writeUTF(state.name());
+				output.writeUTF(key);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not journal " + state + " of " + key, e);
+			}
+		}
+	}
+
+	public void flush() {
+		try {
+			write();
+		} catch (IOException e) {
+			failure = e;
+		}
+		checkFailure();
+	}
+
+	private void flushQuietly() {
+		try {
+			write();
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+
+	private void write() throws IOException {
+		synchronized (flushLock) {
+			ByteArrayOutputStream batch;
+			synchronized (this) {
+				if (buffer.size() == 0) return;
+
+				batch = buffer;
+				buffer = new ByteArrayOutputStream(batch.size());
+				output = new DataOutputStream(buffer);
+			}
+
+			ByteBuffer bytes = ByteBuffer.wrap(batch.toByteArray());
+			while (bytes.hasRemaining()) channel.write(bytes);
+			channel.force(false);
+		}
+	}
+
+	private void checkFailure() {
+		IOException error = failure;
+		if (error != null) throw new UncheckedIOException("Journal could not be written", error);
+	}
+
+	@Override
+	public void close() {
+		flushing.cancel(false);
+		try {
+			write();
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not close journal", e);
+		}
+		checkFailure();
+	}
+
+}
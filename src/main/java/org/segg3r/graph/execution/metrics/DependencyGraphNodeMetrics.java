@@ -0,0 +1,67 @@
+package org.segg3r.graph.execution.metrics;
+
+import org.segg3r.graph.execution.DependencyGraphProcessingStepState;
+
+public class DependencyGraphNodeMetrics<T> {
+
+	private final T node;
+	private final DependencyGraphProcessingStepState state;
+	private final boolean executed;
+	private final long readyNanos;
+	private final long startNanos;
+	private final long endNanos;
+	private final String worker;
+
+	public DependencyGraphNodeMetrics(T node, DependencyGraphProcessingStepState state, boolean executed,
+			long readyNanos, long startNanos, long endNanos, String worker) {
+		this.node = node;
+		this.state = state;
+		this.executed = executed;
+		this.readyNanos = readyNanos;
+		this.startNanos = startNanos;
+		this.endNanos = endNanos;
+		this.worker = worker;
+	}
+
+	public T getNode() {
+		return node;
+	}
+
+	public DependencyGraphProcessingStepState getState() {
+		return state;
+	}
+
+	public boolean isExecuted() {
+		return executed;
+	}
+
+	public long getReadyNanos() {
+		return readyNanos;
+	}
+
+	public long getStartNanos() {
+		return startNanos;
+	}
+
+	public long getEndNanos() {
+		return endNanos;
+	}
+
+	public long getQueueWaitNanos() {
+		return startNanos - readyNanos;
+	}
+
+	public long getRunNanos() {
+		return endNanos - startNanos;
+	}
+
+	public String getWorker() {
+		return worker;
+	}
+
+	@Override
+	public String toString() {
+		return node + " : " + state + " (waited " + getQueueWaitNanos() + "ns, ran " + getRunNanos() + "ns on " + worker + ")";
+	}
+
+}
@@ -0,0 +1,120 @@
+package org.segg3r.graph.execution.metrics;
+
+import org.segg3r.graph.execution.DependencyGraphProcessingStepState;
+
+import java.util.Arrays;
+
+// Timings of the steps of a run by node id, kept in primitive arrays so a step records them without allocating.
+// Each node is written by one step at a time, the run hands its steps over with the happens-before of its own counters.
+// Nodes added while a run is processed go to further blocks of a fixed size, so blocks are never copied while written.
+public final class DependencyGraphNodeTimings {
+
+	private static final int GROWN_BLOCK_SIZE = 256;
+
+	private final Block initial;
+	private volatile Block[] grown = new Block[0];
+
+	public DependencyGraphNodeTimings(int size) {
+		this.initial = new Block(size);
+	}
+
+	// Makes room for a node added while processing, before its step may record anything.
+	public synchronized void ensureCapacity(int node) {
+		int block = (node - initial.size()) / GROWN_BLOCK_SIZE;
+		if (node < initial.size() || block < grown.length) return;
+
+		Block[] blocks = Arrays.copyOf(grown, block + 1);
+		for (int i = grown.length; i < blocks.length; i++) blocks[i] = new Block(GROWN_BLOCK_SIZE);
+		grown = blocks;
+	}
+
+	public void markReady(int node, long nanos) {
+		blockOf(node).readyNanos[offsetOf(node)] = nanos;
+	}
+
+	public void markStarted(int node, long nanos, String worker) {
+		Block block = blockOf(node);
+		int offset = offsetOf(node);
+		block.startNanos[offset] = nanos;
+		block.workers[offset] = worker;
+	}
+
+	public void markEnded(int node, DependencyGraphProcessingStepState state, long nanos) {
+		Block block = blockOf(node);
+		int offset = offsetOf(node);
+		block.endNanos[offset] = nanos;
+		block.states[offset] = state;
+	}
+
+	// A step that terminates without being executed is ready, started and ended at the same time.
+	public void markTerminated(int node, DependencyGraphProcessingStepState state, long nanos) {
+		Block block = blockOf(node);
+		int offset = offsetOf(node);
+		block.readyNanos[offset] = block.startNanos[offset] = block.endNanos[offset] = nanos;
+		block.states[offset] = state;
+	}
+
+	public DependencyGraphProcessingStepState getState(int node) {
+		return blockOf(node).states[offsetOf(node)];
+	}
+
+	public boolean isExecuted(int node) {
+		return getWorker(node) != null;
+	}
+
+	public long getReadyNanos(int node) {
+		return blockOf(node).readyNanos[offsetOf(node)];
+	}
+
+	public long getStartNanos(int node) {
+		return blockOf(node).startNanos[offsetOf(node)];
+	}
+
+	public long getEndNanos(int node) {
+		return blockOf(node).endNanos[offsetOf(node)];
+	}
+
+	public long getRunNanos(int node) {
+		return getEndNanos(node) - getStartNanos(node);
+	}
+
+	public String getWorker(int node) {
+		return blockOf(node).workers[offsetOf(node)];
+	}
+
+	public <T> DependencyGraphNodeMetrics<T> metricsOf(int node, T entity) {
+		return new DependencyGraphNodeMetrics<>(entity, getState(node), isExecuted(node),
+				getReadyNanos(node), getStartNanos(node), getEndNanos(node), getWorker(node));
+	}
+
+	private Block blockOf(int node) {
+		return node < initial.size() ? initial : grown[(node - initial.size()) / GROWN_BLOCK_SIZE];
+	}
+
+	private int offsetOf(int node) {
+		return node < initial.size() ? node : (node - initial.size()) % GROWN_BLOCK_SIZE;
+	}
+
+	private static final class Block {
+
+		private final long[] readyNanos;
+		private final long[] startNanos;
+		private final long[] endNanos;
+		private final String[] workers;
+		private final DependencyGraphProcessingStepState[] states;
+
+		private Block(int size) {
+			this.readyNanos = new long[size];
+			this.startNanos = new long[size];
+			this.endNanos = new long[size];
+			this.workers = new String[size];
+			this.states = new DependencyGraphProcessingStepState[size];
+		}
+
+		private int size() {
+			return states.length;
+		}
+
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.segg3r.graph.execution.metrics;
+
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+import org.segg3r.graph.execution.DependencyGraphProcessingStepState;
+
+public interface DependencyGraphProcessingMetricsListener<T> {
+
+	static <TT> DependencyGraphProcessingMetricsListener<TT> noMetrics() {
+		return new DependencyGraphProcessingMetricsListener<TT>() {};
+	}
+
+	static <TT> DependencyGraphProcessingMetricsListener<TT> both(DependencyGraphProcessingMetricsListener<TT> first,
+			DependencyGraphProcessingMetricsListener<TT> second) {
+		return new DependencyGraphProcessingMetricsListener<TT>() {
+			@Override
+			public void onNodeReady(TT node) {
+				first.onNodeReady(node);
+				second.onNodeReady(node);
+			}
+
+			@Override
+			public void onNodeStarted(TT node, long queueWaitNanos) {
+				first.onNodeStarted(node, queueWaitNanos);
+				second.onNodeStarted(node, queueWaitNanos);
+			}
+
+			@Override
+			public void onNodeCompleted(TT node, DependencyGraphProcessingStepState state, long runNanos) {
+				first.onNodeCompleted(node, state, runNanos);
+				second.onNodeCompleted(node, state, runNanos);
+			}
+
+			@Override
+			public void onRunCompleted(DependencyGraphProcessingResult<TT> result) {
+				first.onRunCompleted(result);
+				second.onRunCompleted(result);
+			}
+		};
+	}
+
+	default void onNodeReady(T node) {}
+	default void onNodeStarted(T node, long queueWaitNanos) {}
+	default void onNodeCompleted(T node, DependencyGraphProcessingStepState state, long runNanos) {}
+	default void onRunCompleted(DependencyGraphProcessingResult<T> result) {}
+
+}
@@ -0,0 +1,59 @@
+package org.segg3r.graph.execution.metrics;
+
+import org.segg3r.graph.execution.DependencyGraphProcessingStepState;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class DependencyGraphProcessingStatistics<T> implements DependencyGraphProcessingMetricsListener<T> {
+
+	private final LongAdder readyNodes = new LongAdder();
+	private final LongAdder startedNodes = new LongAdder();
+	private final LongAdder finishedNodes = new LongAdder();
+	private final LongAdder failedNodes = new LongAdder();
+	private final LatencyHistogram queueWaitNanos = new LatencyHistogram();
+	private final LatencyHistogram runNanos = new LatencyHistogram();
+
+	@Override
+	public void onNodeReady(T node) {
+		readyNodes.increment();
+	}
+
+	@Override
+	public void onNodeStarted(T node, long queueWaitNanos) {
+		startedNodes.increment();
+		this.queueWaitNanos.record(queueWaitNanos);
+	}
+
+	@Override
+	public void onNodeCompleted(T node, DependencyGraphProcessingStepState state, long runNanos) {
+		if (state == DependencyGraphProcessingStepState.FINISHED) finishedNodes.increment();
+		else failedNodes.increment();
+
+		this.runNanos.record(runNanos);
+	}
+
+	public long getReadyNodes() {
+		return readyNodes.sum();
+	}
+
+	public long getStartedNodes() {
+		return startedNodes.sum();
+	}
+
+	public long getFinishedNodes() {
+		return finishedNodes.sum();
+	}
+
+	public long getFailedNodes() {
+		return failedNodes.sum();
+	}
+
+	public LatencyHistogram getQueueWaitNanos() {
+		return queueWaitNanos;
+	}
+
+	public LatencyHistogram getRunNanos() {
+		return runNanos;
+	}
+
+}
@@ -0,0 +1,54 @@
+package org.segg3r.graph.execution.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free histogram with power-of-two buckets: bucket 0 counts zeros, bucket i counts values in [2^(i-1), 2^i).
+public class LatencyHistogram {
+
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+
+	public void record(long value) {
+		long positive = Math.max(value, 0);
+		buckets.incrementAndGet(bucketOf(positive));
+		count.increment();
+		sum.add(positive);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) getSum() / count;
+	}
+
+	// Upper bound of the bucket that contains the given percentile, in the recorded unit.
+	public long getPercentile(double percentile) {
+		long count = getCount();
+		if (count == 0) return 0;
+
+		long threshold = (long) Math.ceil(count * percentile / 100);
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += buckets.get(bucket);
+			if (seen >= threshold) return (1L << bucket) - 1;
+		}
+
+		return Long.MAX_VALUE;
+	}
+
+	private static int bucketOf(long value) {
+		return Long.SIZE - Long.numberOfLeadingZeros(value);
+	}
+
+}
@@ -1,71 +1,289 @@
 package org.segg3r.graph.execution.step;
 
 import com.google.common.collect.Lists;
-import org.segg3r.graph.DependencyGraphElement;
 import org.segg3r.graph.execution.DependencyGraphProcessingContext;
 import org.segg3r.graph.execution.DependencyGraphProcessingStepState;
-import org.segg3r.graph.execution.DependencyGraphProcessingCallback;
 
-import java.util.Queue;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static org.segg3r.graph.execution.DependencyGraphProcessingStepState.*;
 
-public class SingleDependencyGraphProcessingStep<T> implements DependencyGraphProcessingStep<T> {
+public class SingleDependencyGraphProcessingStep<T> implements DependencyGraphProcessingStep<T>, Runnable {
 
-	private final DependencyGraphElement<T> element;
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<SingleDependencyGraphProcessingStep> UNFINISHED_DEPENDENCIES =
+			AtomicIntegerFieldUpdater.newUpdater(SingleDependencyGraphProcessingStep.class, "unfinishedDependencies");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<SingleDependencyGraphProcessingStep, DependencyGraphProcessingStepState> STATE =
+			AtomicReferenceFieldUpdater.newUpdater(SingleDependencyGraphProcessingStep.class,
+					DependencyGraphProcessingStepState.class, "state");
+
+	private final int node;
+	private final T entity;
 	private final DependencyGraphProcessingContext<T> context;
-	private DependencyGraphProcessingStepState state = WAITING;
+	private volatile int unfinishedDependencies;
+	private volatile DependencyGraphProcessingStepState dependencyFailure;
+	private volatile DependencyGraphProcessingStepState state = WAITING;
+	private long priority;
+	private int attempts;
+	private volatile CompletionStage<?> inFlight;
+	private volatile ScheduledFuture<?> timeout;
+	private Thread runner;
+	private boolean interrupted;
+	private List<SingleDependencyGraphProcessingStep<T>> addedDependents;
+	private boolean dependentsReleased;
 
-	public SingleDependencyGraphProcessingStep(DependencyGraphElement<T> element, DependencyGraphProcessingContext<T> context) {
-		this.element = element;
+	public SingleDependencyGraphProcessingStep(int node, DependencyGraphProcessingContext<T> context) {
+		this.node = node;
+		this.entity = context.getGraph().getEntity(node);
 		this.context = context;
+		this.unfinishedDependencies = context.getGraph().getDirectDependencyCount(node);
+	}
+
+	// A step added while processing starts out held, it has to be released before it may run.
+	public SingleDependencyGraphProcessingStep(int node, T entity, DependencyGraphProcessingContext<T> context) {
+		this.node = node;
+		this.entity = entity;
+		this.context = context;
+		this.unfinishedDependencies = 1;
+	}
+
+	@Override
+	public void run() {
+		context.run(this);
+	}
+
+	public void executeGuarded() {
+		try {
+			execute();
+		} catch (Throwable throwable) {
+			context.abort(throwable);
+		}
 	}
 
 	@Override
 	public void execute() {
-		if (!isReadyForExecution()) return;
+		if (!start()) return;
 
-		if (element.isEmpty()) {
-			state = FINISHED;
-			return;
+		timeout = context.scheduleTimeout(this);
+		attempt();
+	}
+
+	// Moves the step to RUNNING, the caller then processes it and reports the outcome with finish().
+	public boolean start() {
+		if (hasUnfinishedDependencies()) return false;
+		if (context.isExpired() || context.isCancelled()) {
+			terminateBeforeStart(context.isExpired() ? TIMED_OUT : CANCELLED);
+			return false;
 		}
+		if (!compareAndSetState(WAITING, RUNNING)) return false;
 
-		T entity = element.getEntity().get();
-		DependencyGraphProcessingCallback<T> callback = context.getCallback();
+		attempts = 1;
+		long startNanos = System.nanoTime();
+		context.getTimings().markStarted(node, startNanos, Thread.currentThread().getName());
+		context.getMetricsListener().onNodeStarted(entity, startNanos - context.getTimings().getReadyNanos(node));
+		context.onNodeStateChanged(entity, RUNNING);
+		return true;
+	}
 
-		state = RUNNING;
-		callback.onNodeStateChanged(entity, RUNNING);
+	public void finish(boolean succeeded) {
+		onProcessed(succeeded);
+	}
+
+	private void attempt() {
+		if (state != RUNNING) return;
+		if (context.isCancelled()) {
+			onProcessed(false);
+			return;
+		}
+
+		CompletionStage<?> processing;
+		synchronized (this) {
+			runner = Thread.currentThread();
+		}
 		try {
-			callback.processNode(entity);
-			state = FINISHED;
-			callback.onNodeStateChanged(entity, FINISHED);
+			processing = context.processNode(entity);
 		} catch (Exception e) {
-			state = FAILED;
-			callback.onNodeStateChanged(entity, FAILED);
+			onAttempted(false);
+			return;
+		} finally {
+			clearRunner();
+		}
 
-			getDependents().forEach(dependent -> {
-				dependent.setState(FAILED);
-				dependent.element.getEntity().ifPresent(element -> callback.onNodeStateChanged(element, FAILED));
+		if (processing == null) {
+			onAttempted(true);
+		} else if (processing instanceof CompletableFuture && ((CompletableFuture<?>) processing).isDone()) {
+			onAttempted(!((CompletableFuture<?>) processing).isCompletedExceptionally());
+		} else {
+			inFlight = processing;
+			if (state != RUNNING || context.isCancelled()) interrupt();
+			processing.whenComplete((result, failure) -> {
+				inFlight = null;
+				try {
+					onAttempted(failure == null);
+				} catch (Throwable throwable) {
+					context.abort(throwable);
+				}
 			});
 		}
 	}
 
-	public Queue<DependencyGraphProcessingStep<T>> getExecutionQueue() {
-		Set<SingleDependencyGraphProcessingStep<T>> directDependents = getDirectDependents();
+	private void retry() {
+		try {
+			attempt();
+		} catch (Throwable throwable) {
+			context.abort(throwable);
+		}
+	}
+
+	// The interrupt of a cancelled synchronous callback must not leak to whatever the worker runs next.
+	private void clearRunner() {
+		boolean wasInterrupted;
+		synchronized (this) {
+			runner = null;
+			wasInterrupted = interrupted;
+			interrupted = false;
+		}
+		if (wasInterrupted) Thread.interrupted();
+	}
+
+	private void onAttempted(boolean succeeded) {
+		if (!succeeded && attempts < context.getMaxAttempts() && !context.isCancelled() && state == RUNNING) {
+			context.scheduleRetry(this::retry, attempts++);
+		} else {
+			onProcessed(succeeded);
+		}
+	}
 
-		Queue<DependencyGraphProcessingStep<T>> queue = Lists.newLinkedList();
-		if (directDependents.isEmpty()) return queue;
+	// A step that already timed out ignores the late outcome of its processing.
+	private void onProcessed(boolean succeeded) {
+		DependencyGraphProcessingStepState state = succeeded ? FINISHED : context.isCancelled() ? CANCELLED : FAILED;
+		if (!compareAndSetState(RUNNING, state)) return;
 
-		queue.add(ParallelDependencyGraphProcessingStep.parallelExecution(directDependents));
-		directDependents.forEach(dependent -> queue.addAll(dependent.getExecutionQueue()));
+		ScheduledFuture<?> pendingTimeout = timeout;
+		if (pendingTimeout != null) pendingTimeout.cancel(false);
+		onTerminated(state);
+	}
 
-		return queue;
+	// Frees the worker slot at once, the callback is interrupted but may still be running.
+	public void timeOut() {
+		if (!compareAndSetState(RUNNING, TIMED_OUT)) return;
+
+		interrupt();
+		onTerminated(TIMED_OUT);
 	}
 
-	@Override
-	public void setState(DependencyGraphProcessingStepState state) {
-		this.state = state;
+	private void onTerminated(DependencyGraphProcessingStepState state) {
+		long endNanos = System.nanoTime();
+		context.getTimings().markEnded(node, state, endNanos);
+		context.getMetricsListener().onNodeCompleted(entity, state, endNanos - context.getTimings().getStartNanos(node));
+		context.onNodeStateChanged(entity, state);
+		context.onStepProcessed(this);
+		if (state != FINISHED) context.onStepFailed();
+
+		complete(state);
+	}
+
+	private void terminateBeforeStart(DependencyGraphProcessingStepState state) {
+		if (!compareAndSetState(WAITING, state)) return;
+
+		context.getTimings().markTerminated(node, state, System.nanoTime());
+		context.onNodeStateChanged(entity, state);
+		context.onStepProcessed(this);
+		complete(state);
+	}
+
+	public void cancel() {
+		if (state == RUNNING) interrupt();
+	}
+
+	private void interrupt() {
+		synchronized (this) {
+			if (runner != null && !interrupted) {
+				interrupted = true;
+				runner.interrupt();
+			}
+		}
+
+		CompletionStage<?> processing = inFlight;
+		if (processing instanceof CompletableFuture) ((CompletableFuture<?>) processing).cancel(true);
+	}
+
+	// Dependents inherit why their dependency did not finish: FAILED, CANCELLED or TIMED_OUT.
+	// Returns whether the step terminated that way, the caller then releases its dependents in turn.
+	public boolean onDependencyCompleted(DependencyGraphProcessingStepState dependencyState) {
+		if (dependencyState != FINISHED) dependencyFailure = dependencyState;
+		if (UNFINISHED_DEPENDENCIES.decrementAndGet(this) > 0) return false;
+
+		DependencyGraphProcessingStepState failure = dependencyFailure;
+		if (failure == null) {
+			context.submit(this);
+			return false;
+		}
+
+		DependencyGraphProcessingStepState state = context.isCancelled() ? CANCELLED : failure;
+		if (!compareAndSetState(WAITING, state)) return false;
+
+		context.getTimings().markTerminated(node, state, System.nanoTime());
+		context.onNodeStateChanged(entity, state);
+		return true;
+	}
+
+	// Adds an unfinished dependency, unless the step has none left and was already submitted.
+	public boolean hold() {
+		int unfinished;
+		while ((unfinished = unfinishedDependencies) > 0) {
+			if (UNFINISHED_DEPENDENCIES.compareAndSet(this, unfinished, unfinished + 1)) return true;
+		}
+
+		return false;
+	}
+
+	// Returns false once the dependents are released, the caller then releases the dependent itself.
+	public synchronized boolean addDependent(SingleDependencyGraphProcessingStep<T> dependent) {
+		if (dependentsReleased) return false;
+
+		if (addedDependents == null) addedDependents = Lists.newArrayList();
+		addedDependents.add(dependent);
+		return true;
+	}
+
+	public synchronized List<SingleDependencyGraphProcessingStep<T>> releaseAddedDependents() {
+		dependentsReleased = true;
+		List<SingleDependencyGraphProcessingStep<T>> released = addedDependents;
+		addedDependents = null;
+		return released;
+	}
+
+	private void complete(DependencyGraphProcessingStepState state) {
+		context.releaseDependents(this, state);
+		context.onStepCompleted();
+	}
+
+	public boolean compareAndSetState(DependencyGraphProcessingStepState expected, DependencyGraphProcessingStepState state) {
+		return STATE.compareAndSet(this, expected, state);
+	}
+
+	public DependencyGraphProcessingStepState getState() {
+		return state;
+	}
+
+	// Considers the step FINISHED without running it, e.g. when its result from a previous run is still valid.
+	public void skip() {
+		if (!compareAndSetState(WAITING, FINISHED)) return;
+
+		context.getTimings().markTerminated(node, FINISHED, System.nanoTime());
+		complete(FINISHED);
+	}
+
+	public void markReady() {
+		context.getTimings().markReady(node, System.nanoTime());
+		context.getMetricsListener().onNodeReady(entity);
 	}
 
 	public boolean isReadyForExecution() {
@@ -74,24 +292,27 @@ public class SingleDependencyGraphProcessingStep<T> implements DependencyGraphPr
 	}
 
 	public boolean hasUnfinishedDependencies() {
-		Set<SingleDependencyGraphProcessingStep<T>> directDependencies = getDirectDependencies();
+		return unfinishedDependencies > 0;
+	}
+
+	public long getPriority() {
+		return priority;
+	}
 
-		return directDependencies.stream()
-				.filter(dependency -> !dependency.isFinished())
-				.findAny()
-				.isPresent();
+	public void setPriority(long priority) {
+		this.priority = priority;
 	}
 
-	private Set<SingleDependencyGraphProcessingStep<T>> getDirectDependents() {
-		return context.getSteps(element.getDirectDependents());
+	public int getAttempts() {
+		return attempts;
 	}
 
-	private Set<SingleDependencyGraphProcessingStep<T>> getDirectDependencies() {
-		return context.getSteps(element.getDirectDependencies());
+	public int getNode() {
+		return node;
 	}
 
-	private Set<SingleDependencyGraphProcessingStep<T>> getDependents() {
-		return context.getSteps(element.getDependents());
+	public T getEntity() {
+		return entity;
 	}
 
 	public boolean isWaiting() {
@@ -104,7 +325,7 @@ public class SingleDependencyGraphProcessingStep<T> implements DependencyGraphPr
 
 	@Override
 	public String toString() {
-		return element.toString() + " : " + state;
+		return entity + " : " + state;
 	}
 
 }
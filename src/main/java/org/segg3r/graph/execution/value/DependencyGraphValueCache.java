@@ -0,0 +1,37 @@
+package org.segg3r.graph.execution.value;
+
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+// Values are keyed by the node and the values of its direct dependencies. Entries keep the inputs they were computed
+// from and only match equal inputs, hashes are merely used to find candidate entries.
+public interface DependencyGraphValueCache<T, V> {
+
+	static <TT, VV> DependencyGraphValueCache<TT, VV> noCache() {
+		return new DependencyGraphValueCache<TT, VV>() {
+			@Override
+			public Optional<VV> get(TT node, Map<TT, VV> inputs) {
+				return Optional.empty();
+			}
+
+			@Override
+			public void put(TT node, Map<TT, VV> inputs, VV value) {}
+		};
+	}
+
+	static <TT, VV> DependencyGraphValueCache<TT, VV> inMemoryCache(int maxEntries) {
+		return new InMemoryDependencyGraphValueCache<>(maxEntries);
+	}
+
+	static <TT, VV extends Serializable> DependencyGraphValueCache<TT, VV> onDiskCache(Path directory, int maxEntries) {
+		return new OnDiskDependencyGraphValueCache<>(directory, maxEntries);
+	}
+
+	Optional<V> get(T node, Map<T, V> inputs);
+
+	// Null values are never cached.
+	void put(T node, Map<T, V> inputs, V value);
+
+}
@@ -0,0 +1,18 @@
+package org.segg3r.graph.execution.value;
+
+import org.segg3r.graph.execution.DependencyGraphProcessingStepState;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+
+public interface DependencyGraphValueCallback<T, V> {
+
+	static <TT, VV> DependencyGraphValueCallback<TT, VV> valueCallback(BiFunction<TT, Map<TT, VV>, VV> computation) {
+		return computation::apply;
+	}
+
+	V computeNode(T node, Map<T, V> dependencyValues);
+
+	default void onNodeStateChanged(T node, DependencyGraphProcessingStepState state) {}
+
+}
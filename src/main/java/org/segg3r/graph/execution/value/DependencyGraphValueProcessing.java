@@ -0,0 +1,92 @@
+package org.segg3r.graph.execution.value;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.segg3r.graph.FrozenDependencyGraph;
+import org.segg3r.graph.execution.DependencyGraphAsyncProcessingCallback;
+import org.segg3r.graph.execution.DependencyGraphProcessingOptions;
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+import org.segg3r.graph.execution.DependencyGraphProcessingStepState;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.segg3r.graph.execution.DependencyGraphProcessingStepState.FINISHED;
+
+public class DependencyGraphValueProcessing<T, V> implements DependencyGraphAsyncProcessingCallback<T> {
+
+	private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+	public static <TT, VV> CompletableFuture<DependencyGraphValueResult<TT, VV>> computeValues(FrozenDependencyGraph<TT> graph,
+			DependencyGraphValueCallback<TT, VV> callback, DependencyGraphValueCache<TT, VV> cache,
+			DependencyGraphProcessingOptions<TT> options) {
+		if (options.getPreviouslyFinished().isPresent()) {
+			throw new IllegalArgumentException("Incremental processing can not be combined with value computation, "
+					+ "unchanged nodes are served from the value cache instead.");
+		}
+
+		DependencyGraphValueProcessing<TT, VV> processing = new DependencyGraphValueProcessing<>(graph, callback, cache);
+		return graph.processAsync(processing, options).thenApply(processing::resultOf);
+	}
+
+	private final FrozenDependencyGraph<T> graph;
+	private final DependencyGraphValueCallback<T, V> callback;
+	private final DependencyGraphValueCache<T, V> cache;
+	private final AtomicReferenceArray<V> values;
+	private final Set<T> cachedNodes = Sets.newConcurrentHashSet();
+
+	private DependencyGraphValueProcessing(FrozenDependencyGraph<T> graph, DependencyGraphValueCallback<T, V> callback,
+			DependencyGraphValueCache<T, V> cache) {
+		this.graph = graph;
+		this.callback = callback;
+		this.cache = cache;
+		this.values = new AtomicReferenceArray<>(graph.size());
+	}
+
+	@Override
+	public CompletionStage<?> processNode(T node) {
+		int id = graph.indexOf(node);
+		int dependencyCount = graph.getDirectDependencyCount(id);
+		Map<T, V> dependencyValues = Maps.newHashMapWithExpectedSize(dependencyCount);
+		for (int i = 0; i < dependencyCount; i++) {
+			int dependency = graph.getDirectDependency(id, i);
+			dependencyValues.put(graph.getEntity(dependency), values.get(dependency));
+		}
+		Map<T, V> inputs = Collections.unmodifiableMap(dependencyValues);
+
+		Optional<V> cachedValue = cache.get(node, inputs);
+		if (cachedValue.isPresent()) {
+			cachedNodes.add(node);
+			values.set(id, cachedValue.get());
+		} else {
+			V value = callback.computeNode(node, inputs);
+			cache.put(node, inputs, value);
+			values.set(id, value);
+		}
+
+		return COMPLETED;
+	}
+
+	@Override
+	public void onNodeStateChanged(T node, DependencyGraphProcessingStepState state) {
+		callback.onNodeStateChanged(node, state);
+	}
+
+	private DependencyGraphValueResult<T, V> resultOf(DependencyGraphProcessingResult<T> processingResult) {
+		Map<T, V> finishedValues = Maps.newLinkedHashMap();
+		for (int node = 0; node < graph.size(); node++) {
+			T entity = graph.getEntity(node);
+			if (processingResult.getState(entity).map(state -> state == FINISHED).orElse(false)) {
+				finishedValues.put(entity, values.get(node));
+			}
+		}
+
+		return new DependencyGraphValueResult<>(processingResult, finishedValues, cachedNodes);
+	}
+
+}
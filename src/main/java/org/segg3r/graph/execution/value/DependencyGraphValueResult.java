@@ -0,0 +1,47 @@
+package org.segg3r.graph.execution.value;
+
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class DependencyGraphValueResult<T, V> {
+
+	private final DependencyGraphProcessingResult<T> processingResult;
+	private final Map<T, V> values;
+	private final Set<T> cachedNodes;
+
+	DependencyGraphValueResult(DependencyGraphProcessingResult<T> processingResult, Map<T, V> values, Set<T> cachedNodes) {
+		this.processingResult = processingResult;
+		this.values = Collections.unmodifiableMap(values);
+		this.cachedNodes = Collections.unmodifiableSet(cachedNodes);
+	}
+
+	// Only nodes that finished have a value.
+	public Optional<V> getValue(T node) {
+		return Optional.ofNullable(values.get(node));
+	}
+
+	public Map<T, V> getValues() {
+		return values;
+	}
+
+	public boolean isCached(T node) {
+		return cachedNodes.contains(node);
+	}
+
+	public Set<T> getCachedNodes() {
+		return cachedNodes;
+	}
+
+	public boolean isSuccessful() {
+		return processingResult.isSuccessful();
+	}
+
+	public DependencyGraphProcessingResult<T> getProcessingResult() {
+		return processingResult;
+	}
+
+}
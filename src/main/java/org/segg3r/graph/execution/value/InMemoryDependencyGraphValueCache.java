@@ -0,0 +1,62 @@
+package org.segg3r.graph.execution.value;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+class InMemoryDependencyGraphValueCache<T, V> implements DependencyGraphValueCache<T, V> {
+
+	private final Map<Key<T, V>, V> entries;
+
+	InMemoryDependencyGraphValueCache(int maxEntries) {
+		if (maxEntries < 1) throw new IllegalArgumentException("Cache must hold at least one entry, got " + maxEntries);
+
+		this.entries = new LinkedHashMap<Key<T, V>, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key<T, V>, V> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	@Override
+	public synchronized Optional<V> get(T node, Map<T, V> inputs) {
+		return Optional.ofNullable(entries.get(new Key<>(node, inputs)));
+	}
+
+	@Override
+	public synchronized void put(T node, Map<T, V> inputs, V value) {
+		if (value != null) entries.put(new Key<>(node, inputs), value);
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	private static final class Key<T, V> {
+
+		private final T node;
+		private final Map<T, V> inputs;
+
+		private Key(T node, Map<T, V> inputs) {
+			this.node = node;
+			this.inputs = inputs;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			Key<?, ?> that = (Key<?, ?>) o;
+
+			return node.equals(that.node) && inputs.equals(that.inputs);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * node.hashCode() + inputs.hashCode();
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+package org.segg3r.graph.execution.value;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
+
+// Every entry is a file holding the node descriptor, the serialized inputs and the serialized value.
+// File names hash the descriptors and the serialized inputs rather than hashCode(), which may differ between JVMs,
+// so equal inputs have to serialize to equal bytes. The descriptor and the inputs are compared again on read.
+class OnDiskDependencyGraphValueCache<T, V extends Serializable> implements DependencyGraphValueCache<T, V> {
+
+	private static final String ENTRY_SUFFIX = ".entry";
+
+	private final Path directory;
+	private final int maxEntries;
+	private final LinkedHashMap<String, Boolean> recentlyUsed = new LinkedHashMap<>(16, 0.75f, true);
+
+	OnDiskDependencyGraphValueCache(Path directory, int maxEntries) {
+		if (maxEntries < 1) throw new IllegalArgumentException("Cache must hold at least one entry, got " + maxEntries);
+
+		this.directory = directory;
+		this.maxEntries = maxEntries;
+
+		try {
+			Files.createDirectories(directory);
+			for (Path entry : existingEntries()) recentlyUsed.put(entry.getFileName().toString(), true);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open value cache in " + directory, e);
+		}
+		evictExcessEntries();
+	}
+
+	private List<Path> existingEntries() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files
+					.filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX))
+					.sorted(Comparator.comparingLong(OnDiskDependencyGraphValueCache::lastModified))
+					.collect(toList());
+		}
+	}
+
+	private static long lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file).toMillis();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Optional<V> get(T node, Map<T, V> inputs) {
+		Map<String, V> inputDescriptors = descriptorsOf(inputs);
+		String fileName;
+		try {
+			fileName = fileName(node, inputDescriptors);
+		} catch (IOException e) {
+			return Optional.empty();
+		}
+		synchronized (this) {
+			if (recentlyUsed.get(fileName) == null) return Optional.empty();
+		}
+
+		// A missing or unreadable entry is just a cache miss.
+		try (InputStream file = Files.newInputStream(directory.resolve(fileName));
+				ObjectInputStream input = new ObjectInputStream(file)) {
+			String descriptor = input.readUTF();
+			Object storedInputs = input.readObject();
+			if (!descriptor.equals(descriptorOf(node)) || !inputDescriptors.equals(storedInputs)) return Optional.empty();
+
+			return Optional.of((V) input.readObject());
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public void put(T node, Map<T, V> inputs, V value) {
+		if (value == null) return;
+
+		TreeMap<String, V> inputDescriptors = descriptorsOf(inputs);
+		String fileName;
+		try {
+			fileName = fileName(node, inputDescriptors);
+			Path temporary = Files.createTempFile(directory, "value", ".tmp");
+			try (OutputStream file = Files.newOutputStream(temporary);
+					ObjectOutputStream output = new ObjectOutputStream(file)) {
+				output.writeUTF(descriptorOf(node));
+				output.writeObject(inputDescriptors);
+				output.writeObject(value);
+			}
+			Files.move(temporary, directory.resolve(fileName), ATOMIC_MOVE, REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not store value of " + node + " in " + directory, e);
+		}
+
+		synchronized (this) {
+			recentlyUsed.put(fileName, true);
+		}
+		evictExcessEntries();
+	}
+
+	private void evictExcessEntries() {
+		while (true) {
+			String evicted;
+			synchronized (this) {
+				if (recentlyUsed.size() <= maxEntries) return;
+
+				Iterator<String> eldest = recentlyUsed.keySet().iterator();
+				evicted = eldest.next();
+				eldest.remove();
+			}
+
+			try {
+				Files.deleteIfExists(directory.resolve(evicted));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not evict value cache entry " + evicted, e);
+			}
+		}
+	}
+
+	synchronized int size() {
+		return recentlyUsed.size();
+	}
+
+	private static String descriptorOf(Object node) {
+		return node.getClass().getName() + ":" + node;
+	}
+
+	// Sorted, so that equal inputs serialize the same way whatever order they were collected in.
+	private static <T, V> TreeMap<String, V> descriptorsOf(Map<T, V> inputs) {
+		TreeMap<String, V> descriptors = new TreeMap<>();
+		inputs.forEach((dependency, value) -> descriptors.put(descriptorOf(dependency), value));
+		return descriptors;
+	}
+
+	// Each value is serialized on its own: a stream writes a value it has seen before as a back reference,
+	// which would make inputs read from the cache hash differently than equal ones that were just computed.
+	private static String fileName(Object node, Map<String, ?> inputDescriptors) throws IOException {
+		Hasher hasher = Hashing.murmur3_128().newHasher().putString(descriptorOf(node), UTF_8);
+		for (Map.Entry<String, ?> input : inputDescriptors.entrySet()) {
+			hasher.putString(input.getKey(), UTF_8).putBytes(serialized(input.getValue()));
+		}
+
+		return hasher.hash() + ENTRY_SUFFIX;
+	}
+
+	private static byte[] serialized(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(value);
+		}
+
+		return bytes.toByteArray();
+	}
+
+}
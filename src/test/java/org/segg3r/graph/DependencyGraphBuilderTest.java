@@ -0,0 +1,84 @@
+package org.segg3r.graph;
+
+import by.segg3r.testng.util.spring.SpringContextListener;
+import org.segg3r.graph.exception.CircularDependencyException;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static by.segg3r.expectunit.Expect.expect;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.synchronizedList;
+import static org.segg3r.graph.execution.DependencyGraphProcessingCallback.processingCallback;
+
+@Listeners(SpringContextListener.class)
+public class DependencyGraphBuilderTest {
+
+	@Test(description = "should build graph with transitive edges removed")
+	public void testBuildReduced() {
+		DependencyGraph<Entity> graph = DependencyGraph.<Entity>builder()
+				.addDependency(givenEntity("three"), givenEntity("one"))
+				.addDependencies(givenEntity("three"), newArrayList(givenEntity("two"), givenEntity("two")))
+				.addDependency(givenEntity("two"), givenEntity("one"))
+				.add(givenEntity("four"))
+				.withTransitiveReduction()
+				.build();
+
+		expect(graph.find(givenEntity("three")).get().directlyDependsOn(givenEntity("two"))).toBeTruthy();
+		expect(graph.find(givenEntity("three")).get().directlyDependsOn(givenEntity("one"))).toBeFalsy();
+		expect(graph.find(givenEntity("three")).get().dependsOn(givenEntity("one"))).toBeTruthy();
+		expect(graph.find(givenEntity("four")).get().isIndependent()).toBeTruthy();
+	}
+
+	@Test(description = "should keep declared edges when transitive reduction is skipped")
+	public void testBuildUnreduced() {
+		DependencyGraph<Entity> graph = DependencyGraph.<Entity>builder()
+				.addDependency(givenEntity("three"), givenEntity("one"))
+				.addDependency(givenEntity("three"), givenEntity("two"))
+				.addDependency(givenEntity("two"), givenEntity("one"))
+				.build();
+
+		expect(graph.find(givenEntity("three")).get().directlyDependsOn(givenEntity("one"))).toBeTruthy();
+
+		List<String> result = synchronizedList(newArrayList());
+		graph.process(processingCallback(entity -> result.add(entity.getName())));
+		expect(result).toEqual(newArrayList("one", "two", "three"));
+	}
+
+	@Test(description = "should allow further changes of built graph")
+	public void testModifyBuilt() {
+		DependencyGraph<Entity> graph = DependencyGraph.<Entity>builder()
+				.addDependency(givenEntity("two"), givenEntity("one"))
+				.add(givenEntity("three"))
+				.build();
+		graph.addDependency(givenEntity("one"), givenEntity("three"));
+
+		expect(graph.find(givenEntity("two")).get().dependsOn(givenEntity("three"))).toBeTruthy();
+		expect(graph.find(givenEntity("one")).get().isIndependent()).toBeFalsy();
+	}
+
+	@Test(description = "should report cycle found while building")
+	public void testBuildCycle() {
+		try {
+			DependencyGraph.<Entity>builder()
+					.addDependency(givenEntity("two"), givenEntity("one"))
+					.addDependency(givenEntity("three"), givenEntity("two"))
+					.addDependency(givenEntity("one"), givenEntity("three"))
+					.addDependency(givenEntity("four"), givenEntity("three"))
+					.build();
+			throw new AssertionError("circular dependency was not detected");
+		} catch (CircularDependencyException e) {
+			List<Object> cycle = e.getCycle();
+			expect(cycle.size()).toEqual(4);
+			expect(cycle.get(0)).toEqual(cycle.get(3));
+			expect(newArrayList(cycle.subList(0, 3))).toContainOnly(
+					givenEntity("one"), givenEntity("two"), givenEntity("three"));
+		}
+	}
+
+	private Entity givenEntity(String name) {
+		return new Entity(name);
+	}
+
+}
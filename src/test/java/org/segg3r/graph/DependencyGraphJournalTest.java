@@ -0,0 +1,82 @@
+package org.segg3r.graph;
+
+import by.segg3r.testng.util.spring.SpringContextListener;
+import org.segg3r.graph.execution.DependencyGraphProcessingOptions;
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+import org.segg3r.graph.execution.journal.DependencyGraphJournal;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static by.segg3r.expectunit.Expect.expect;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.synchronizedList;
+import static org.segg3r.graph.DependencyGraph.emptyGraph;
+import static org.segg3r.graph.execution.DependencyGraphProcessingCallback.processingCallback;
+import static org.segg3r.graph.execution.DependencyGraphProcessingStepState.FINISHED;
+import static org.segg3r.graph.execution.journal.DependencyGraphJournal.openJournal;
+
+@Listeners(SpringContextListener.class)
+public class DependencyGraphJournalTest {
+
+	@Test(description = "should resume run skipping journaled finished nodes")
+	public void testResume() throws Exception {
+		Path file = Files.createTempDirectory("dependency-graph-journal").resolve("run.journal");
+		DependencyGraph<Entity> graph = givenGraph();
+
+		try (DependencyGraphJournal<Entity> journal = openJournal(file)) {
+			graph.process(processingCallback(entity -> {
+				if (entity.getName().equals("three")) throw new RuntimeException();
+			}), DependencyGraphProcessingOptions.<Entity>processingOptions().journal(journal).build());
+		}
+
+		List<String> resumed = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> result;
+		try (DependencyGraphJournal<Entity> journal = openJournal(file)) {
+			result = graph.resume(processingCallback(entity -> resumed.add(entity.getName())), journal);
+		}
+
+		expect(result.isSuccessful()).toBeTruthy();
+		expect(resumed).toContainOnly("three", "four");
+		try (DependencyGraphJournal<Entity> journal = openJournal(file)) {
+			expect(journal.isFinished(givenEntity("four"))).toBeTruthy();
+		}
+	}
+
+	@Test(description = "should ignore torn record at the end of journal")
+	public void testTornRecord() throws Exception {
+		Path file = Files.createTempDirectory("dependency-graph-journal").resolve("run.journal");
+		try (DependencyGraphJournal<Entity> journal = openJournal(file)) {
+			givenGraph().process(processingCallback(entity -> {}),
+					DependencyGraphProcessingOptions.<Entity>processingOptions().journal(journal).build());
+		}
+		Files.write(file, new byte[] { 0, 8, 'F', 'I', 'N' }, StandardOpenOption.APPEND);
+
+		try (DependencyGraphJournal<Entity> journal = openJournal(file)) {
+			journal.onNodeCompleted(givenEntity("five"), FINISHED, 0);
+		}
+
+		try (DependencyGraphJournal<Entity> journal = openJournal(file)) {
+			expect(journal.isFinished(givenEntity("one"))).toBeTruthy();
+			expect(journal.isFinished(givenEntity("four"))).toBeTruthy();
+			expect(journal.isFinished(givenEntity("five"))).toBeTruthy();
+		}
+	}
+
+	private DependencyGraph<Entity> givenGraph() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+		graph.addDependency(givenEntity("four"), givenEntity("three"));
+		return graph;
+	}
+
+	private Entity givenEntity(String name) {
+		return new Entity(name);
+	}
+
+}
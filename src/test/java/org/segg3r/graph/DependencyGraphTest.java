@@ -3,20 +3,44 @@ package org.segg3r.graph;
 import by.segg3r.testng.util.spring.SpringContextListener;
 import org.mockito.InOrder;
 import org.segg3r.graph.exception.CircularDependencyException;
+import org.segg3r.graph.execution.DependencyGraphFailurePolicy;
 import org.segg3r.graph.execution.DependencyGraphProcessingStepStateChange;
 import org.segg3r.graph.execution.DependencyGraphProcessingCallback;
+import org.segg3r.graph.execution.DependencyGraphProcessingOptions;
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+import org.segg3r.graph.execution.metrics.DependencyGraphNodeMetrics;
+import org.segg3r.graph.execution.metrics.DependencyGraphProcessingStatistics;
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static by.segg3r.expectunit.Expect.expect;
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static java.util.Collections.synchronizedList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.segg3r.graph.DependencyGraph.emptyGraph;
+import static org.segg3r.graph.execution.DependencyGraphAsyncProcessingCallback.asyncProcessingCallback;
+import static org.segg3r.graph.execution.DependencyGraphBatchProcessingCallback.batchProcessingCallback;
+import static org.segg3r.graph.execution.DependencyGraphDynamicProcessingCallback.dynamicProcessingCallback;
+import static org.segg3r.graph.execution.DependencyGraphExecutors.asyncForkJoinPool;
+import static org.segg3r.graph.execution.DependencyGraphExecutors.boundedPool;
 import static org.segg3r.graph.execution.DependencyGraphProcessingCallback.processingCallback;
 import static org.segg3r.graph.execution.DependencyGraphProcessingStepState.*;
 import static org.segg3r.graph.execution.DependencyGraphProcessingStepStateChange.stateChangeOf;
@@ -32,6 +56,17 @@ public class DependencyGraphTest {
 		expect(graph.contains(givenEntity("one"))).toBeTruthy();
 	}
 
+	@Test(description = "should reuse existing element when adding known entity")
+	public void testAddExisting() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+
+		expect(graph.add(givenEntity("three")) == graph.find(givenEntity("three")).get()).toBeTruthy();
+		expect(graph.find(givenEntity("three")).get().dependsOn(givenEntity("one"))).toBeTruthy();
+		expect(graph.contains(givenEntity("four"))).toBeFalsy();
+	}
+
 	@Test(description = "should create simple parent->child connection")
 	public void testParentChild() {
 		DependencyGraph<Entity> graph = emptyGraph();
@@ -50,8 +85,45 @@ public class DependencyGraphTest {
 		graph.addDependency(givenEntity("one"), givenEntity("three"));
 	}
 
-	@Test(description = "should resolve intermediate dependencies"
-			+ " (e.g. 3->2 + 3->1 + 2->1 should remove 3->1 and only remain 3->2")
+	@Test(description = "should report full dependency cycle")
+	public void testCircularDependencyPath() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+		graph.add(givenEntity("four"));
+
+		try {
+			graph.addDependency(givenEntity("one"), givenEntity("three"));
+			throw new AssertionError("circular dependency was not detected");
+		} catch (CircularDependencyException e) {
+			expect(e.getCycle()).toEqual(newArrayList(
+					givenEntity("three"), givenEntity("one"), givenEntity("two"), givenEntity("three")));
+		}
+	}
+
+	@Test(description = "should throw exception in case of dependency on itself",
+		expectedExceptions = CircularDependencyException.class)
+	public void testSelfDependency() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("one"), givenEntity("one"));
+	}
+
+	@Test(description = "should accept edges against insertion order")
+	public void testReversedInsertionOrder() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.add(givenEntity("three"));
+		graph.add(givenEntity("two"));
+		graph.add(givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+
+		expect(graph.find(givenEntity("three")).get().dependsOn(givenEntity("one"))).toBeTruthy();
+		List<String> result = synchronizedList(newArrayList());
+		graph.process(processingCallback(entity -> result.add(entity.getName())));
+		expect(result).toEqual(newArrayList("one", "two", "three"));
+	}
+
+	@Test(description = "should keep declared intermediate dependencies")
 	public void testIntermediateDependencies() {
 		DependencyGraph<Entity> graph = emptyGraph();
 		graph.addDependency(givenEntity("three"), givenEntity("two"));
@@ -60,8 +132,70 @@ public class DependencyGraphTest {
 
 		expect(graph.find(givenEntity("two")).get().directlyDependsOn(givenEntity("one"))).toBeTruthy();
 		expect(graph.find(givenEntity("three")).get().directlyDependsOn(givenEntity("two"))).toBeTruthy();
-		expect(graph.find(givenEntity("three")).get().directlyDependsOn(givenEntity("one"))).toBeFalsy();
+		expect(graph.find(givenEntity("three")).get().directlyDependsOn(givenEntity("one"))).toBeTruthy();
 		expect(graph.find(givenEntity("three")).get().dependsOn(givenEntity("one"))).toBeTruthy();
+		expect(graph.find(givenEntity("one")).get().isIndependent()).toBeTruthy();
+		expect(graph.find(givenEntity("two")).get().isIndependent()).toBeFalsy();
+	}
+
+	@Test(description = "should resolve intermediate dependencies on explicit transitive reduction"
+			+ " (e.g. 3->2 + 3->1 + 2->1 should remove 3->1 and only remain 3->2")
+	public void testTransitiveReduction() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+		graph.addDependency(givenEntity("three"), givenEntity("one"));
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+
+		FrozenDependencyGraph<Entity> reduced = graph.freeze().transitiveReduction();
+
+		expect(reduced.edgeCount()).toEqual(2);
+		expect(reduced.directlyDependsOn(givenEntity("two"), givenEntity("one"))).toBeTruthy();
+		expect(reduced.directlyDependsOn(givenEntity("three"), givenEntity("two"))).toBeTruthy();
+		expect(reduced.directlyDependsOn(givenEntity("three"), givenEntity("one"))).toBeFalsy();
+		expect(reduced.dependsOn(givenEntity("three"), givenEntity("one"))).toBeTruthy();
+	}
+
+	@Test(description = "should build stacked diamonds without exponential closure traversal", timeOut = 5000)
+	public void testStackedDiamonds() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int level = 0; level < 40; level++) {
+			graph.addDependency(givenEntity("left" + level), givenEntity("top" + level));
+			graph.addDependency(givenEntity("right" + level), givenEntity("top" + level));
+			graph.addDependency(givenEntity("top" + (level + 1)), givenEntity("left" + level));
+			graph.addDependency(givenEntity("top" + (level + 1)), givenEntity("right" + level));
+		}
+
+		expect(graph.find(givenEntity("top40")).get().dependsOn(givenEntity("top0"))).toBeTruthy();
+		expect(graph.find(givenEntity("top0")).get().getDependents().size()).toEqual(120);
+	}
+
+	@Test(description = "should insert long chain in reverse order", timeOut = 10000)
+	public void testReversedLongChain() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int i = 10000; i > 0; i--) graph.addDependency(givenEntity("node" + i), givenEntity("node" + (i - 1)));
+
+		FrozenDependencyGraph<Entity> frozen = graph.freeze();
+		expect(frozen.indexOf(givenEntity("node0"))).toEqual(0);
+		expect(frozen.indexOf(givenEntity("node10000"))).toEqual(10000);
+
+		try {
+			graph.addDependency(givenEntity("node0"), givenEntity("node10000"));
+			throw new AssertionError("circular dependency was not detected");
+		} catch (CircularDependencyException e) {
+			expect(e.getCycle().size()).toEqual(10002);
+		}
+	}
+
+	@Test(description = "should answer reachability on long chains without retaining closures", timeOut = 5000)
+	public void testLongChainReachability() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int i = 1; i < 8000; i++) graph.addDependency(givenEntity("node" + i), givenEntity("node" + (i - 1)));
+
+		for (int i = 0; i < 8000; i += 100) {
+			expect(graph.find(givenEntity("node" + i)).get().dependsOn(givenEntity("node0"))).toEqual(i > 0);
+			expect(graph.find(givenEntity("node" + i)).get().isDependencyOf(givenEntity("node7999"))).toEqual(i < 7999);
+		}
+		expect(graph.find(givenEntity("node0")).get().findDependent(givenEntity("node7999")).isPresent()).toBeTruthy();
 	}
 
 	@Test(description = "should threat elements without dependencies as independent")
@@ -102,11 +236,613 @@ public class DependencyGraphTest {
 
 		expect(result.size()).toEqual(5);
 		expect(result.get(0)).toEqual("one");
-		expect(result.subList(1, 3)).toContainOnly("two", "three"); // can be any order
-		expect(result.get(3)).toEqual("four");
+		expect(result.indexOf("two") < result.indexOf("four")).toBeTruthy();
+		expect(result.indexOf("three") < result.indexOf("five")).toBeTruthy(); // three may overtake four or not
 		expect(result.get(4)).toEqual("five");
 	}
 
+	@Test(description = "should not hold independent branches behind a slow node")
+	public void testIndependentBranchesProgress() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("slow-child"), givenEntity("slow"));
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+
+		CountDownLatch chainFinished = new CountDownLatch(1);
+		List<String> result = synchronizedList(newArrayList());
+		graph.process(processingCallback(entity -> {
+			if ("slow".equals(entity.getName())) awaitUninterruptibly(chainFinished, 5, SECONDS);
+			result.add(entity.getName());
+			if ("three".equals(entity.getName())) chainFinished.countDown();
+		}));
+
+		expect(result.indexOf("three") < result.indexOf("slow")).toBeTruthy();
+		expect(result.get(4)).toEqual("slow-child");
+	}
+
+	@Test(description = "should run nodes on the supplied executor")
+	public void testCustomExecutor() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.add(givenEntity("three"));
+
+		ExecutorService executor = boundedPool(2);
+		List<String> threadNames = synchronizedList(newArrayList());
+		try {
+			graph.process(processingCallback(entity -> threadNames.add(Thread.currentThread().getName())), executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		expect(threadNames.size()).toEqual(3);
+		expect(threadNames.stream().allMatch(name -> name.startsWith("dependency-graph-worker-"))).toBeTruthy();
+	}
+
+	@Test(description = "should run every node exactly once under contention")
+	public void testExactlyOnceUnderContention() {
+		DependencyGraphBuilder<Entity> builder = DependencyGraph.builder();
+		for (int i = 0; i < 50; i++) {
+			for (int j = 0; j < 20; j++) {
+				builder.addDependency(givenEntity("leaf" + i + "-" + j), givenEntity("root" + j));
+				builder.addDependency(givenEntity("sink"), givenEntity("leaf" + i + "-" + j));
+			}
+		}
+		DependencyGraph<Entity> graph = builder.build();
+
+		ExecutorService executor = asyncForkJoinPool(8);
+		Map<String, Integer> runs = new ConcurrentHashMap<>();
+		try {
+			graph.process(processingCallback(entity -> runs.merge(entity.getName(), 1, Integer::sum)), executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		expect(runs.size()).toEqual(1021);
+		expect(runs.values().stream().allMatch(count -> count == 1)).toBeTruthy();
+	}
+
+	@Test(description = "should keep many asynchronous nodes in flight on a single thread")
+	public void testAsyncCallback() {
+		DependencyGraphBuilder<Entity> builder = DependencyGraph.builder();
+		for (int i = 0; i < 100; i++) {
+			builder.addDependency(givenEntity("node" + i), givenEntity("root"));
+		}
+		DependencyGraph<Entity> graph = builder.build();
+
+		ExecutorService executor = boundedPool(1);
+		ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor();
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		try {
+			graph.processAsync(asyncProcessingCallback(entity -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				CompletableFuture<Void> response = new CompletableFuture<>();
+				io.schedule(() -> {
+					inFlight.decrementAndGet();
+					response.complete(null);
+				}, 50, MILLISECONDS);
+				return response;
+			}), executor).get(5, SECONDS);
+		} catch (Exception e) {
+			throw new AssertionError(e);
+		} finally {
+			executor.shutdown();
+			io.shutdown();
+		}
+
+		expect(maxInFlight.get() > 1).toBeTruthy();
+	}
+
+	@Test(description = "should fail dependents of failed asynchronous node")
+	public void testAsyncFailure() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+
+		List<DependencyGraphProcessingStepStateChange<Entity>> changes = synchronizedList(newArrayList());
+		graph.processAsync(asyncProcessingCallback(entity -> {
+			CompletableFuture<Void> response = new CompletableFuture<>();
+			if ("two".equals(entity.getName())) response.completeExceptionally(new RuntimeException());
+			else response.complete(null);
+			return response;
+		}, changes::add)).join();
+
+		expect(changes).toContainOnly(stateChangeOf(givenEntity("one"), RUNNING), stateChangeOf(givenEntity("one"), FINISHED),
+				stateChangeOf(givenEntity("two"), RUNNING), stateChangeOf(givenEntity("two"), FAILED),
+				stateChangeOf(givenEntity("three"), FAILED));
+	}
+
+	@Test(description = "should record node timings and critical path")
+	public void testMetrics() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+		graph.add(givenEntity("side"));
+
+		DependencyGraphProcessingStatistics<Entity> statistics = new DependencyGraphProcessingStatistics<>();
+		DependencyGraphProcessingResult<Entity> result = graph.process(processingCallback(entity -> {
+			if ("one".equals(entity.getName())) sleepUninterruptibly(20, MILLISECONDS);
+		}), DependencyGraphProcessingOptions.<Entity>processingOptions().metricsListener(statistics).build());
+
+		expect(result.isSuccessful()).toBeTruthy();
+		expect(result.getCriticalPath()).toEqual(newArrayList(givenEntity("one"), givenEntity("two"), givenEntity("three")));
+		expect(result.getCriticalPathNanos() >= MILLISECONDS.toNanos(20)).toBeTruthy();
+		expect(result.getWallNanos() >= result.getCriticalPathNanos()).toBeTruthy();
+		expect(result.getNodeMetrics(givenEntity("two")).get().getStartNanos()
+				>= result.getNodeMetrics(givenEntity("one")).get().getEndNanos()).toBeTruthy();
+		expect(result.getNodeMetrics(givenEntity("side")).get().getWorker() != null).toBeTruthy();
+		expect(statistics.getStartedNodes()).toEqual(4L);
+		expect(statistics.getFinishedNodes()).toEqual(4L);
+		expect(statistics.getRunNanos().getCount()).toEqual(4L);
+		expect(statistics.getRunNanos().getPercentile(100) >= MILLISECONDS.toNanos(20)).toBeTruthy();
+	}
+
+	@Test(description = "should dispatch ready nodes by longest remaining path")
+	public void testCriticalPathPriority() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("a"), givenEntity("root"));
+		graph.addDependency(givenEntity("b"), givenEntity("root"));
+		graph.addDependency(givenEntity("c"), givenEntity("root"));
+		graph.addDependency(givenEntity("c1"), givenEntity("c"));
+		graph.addDependency(givenEntity("c2"), givenEntity("c1"));
+
+		ExecutorService executor = boundedPool(1);
+		List<String> result = synchronizedList(newArrayList());
+		try {
+			graph.process(processingCallback(entity -> result.add(entity.getName())),
+					DependencyGraphProcessingOptions.<Entity>processingOptions()
+							.executor(executor)
+							.criticalPathPriority(entity -> entity.getName().startsWith("c") ? 2 : 1)
+							.build());
+		} finally {
+			executor.shutdown();
+		}
+
+		expect(result.subList(0, 4)).toEqual(newArrayList("root", "c", "c1", "c2"));
+		expect(result.subList(4, 6)).toContainOnly("a", "b");
+	}
+
+	@Test(description = "should re-process only changed nodes and their dependents")
+	public void testIncrementalProcessing() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+		graph.addDependency(givenEntity("five"), givenEntity("four"));
+
+		List<String> firstRun = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> firstResult =
+				graph.process(givenFailingCallback("four", entity -> firstRun.add(entity.getName())));
+
+		List<String> secondRun = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> secondResult = graph.process(
+				processingCallback(entity -> secondRun.add(entity.getName())),
+				DependencyGraphProcessingOptions.<Entity>processingOptions()
+						.incremental(firstResult, newArrayList(givenEntity("two")))
+						.build());
+
+		List<String> thirdRun = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> thirdResult = graph.process(
+				processingCallback(entity -> thirdRun.add(entity.getName())),
+				DependencyGraphProcessingOptions.<Entity>processingOptions()
+						.incremental(secondResult, newArrayList())
+						.build());
+
+		expect(firstRun).toContainOnly("one", "two", "three");
+		expect(secondRun).toContainOnly("two", "three", "four", "five");
+		expect(secondResult.isSuccessful()).toBeTruthy();
+		expect(thirdRun).toBeEmpty();
+		expect(thirdResult.isSuccessful()).toBeTruthy();
+	}
+
+	@Test(description = "should schedule nodes added while processing")
+	public void testDynamicProcessing() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("report"), givenEntity("root"));
+
+		List<String> result = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> processingResult = graph.processDynamic(
+				dynamicProcessingCallback((entity, expansion) -> {
+					result.add(entity.getName());
+					if (entity.getName().equals("root")) {
+						expansion.addDependency(givenEntity("merge"), givenEntity("first"));
+						expansion.addDependency(givenEntity("merge"), givenEntity("second"));
+						expansion.addDependency(givenEntity("report"), givenEntity("merge"));
+					}
+				}));
+
+		expect(processingResult.isSuccessful()).toBeTruthy();
+		expect(result).toContainOnly("root", "first", "second", "merge", "report");
+		expect(result.indexOf("merge") > result.indexOf("first")).toBeTruthy();
+		expect(result.indexOf("merge") > result.indexOf("second")).toBeTruthy();
+		expect(result.indexOf("report") > result.indexOf("merge")).toBeTruthy();
+	}
+
+	@Test(description = "should report metrics of many nodes added while processing")
+	public void testDynamicProcessingMetrics() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.add(givenEntity("root"));
+
+		DependencyGraphProcessingResult<Entity> processingResult = graph.processDynamic(
+				dynamicProcessingCallback((entity, expansion) -> {
+					if (entity.getName().equals("root")) {
+						for (int i = 1; i < 600; i++) {
+							expansion.addDependency(givenEntity("added-" + i), givenEntity("added-" + (i - 1)));
+						}
+					}
+				}));
+
+		expect(processingResult.isSuccessful()).toBeTruthy();
+		expect(processingResult.getNodeMetrics().size()).toEqual(601);
+		for (int i = 1; i < 600; i++) {
+			DependencyGraphNodeMetrics<Entity> metrics = processingResult.getNodeMetrics(givenEntity("added-" + i)).get();
+			expect(metrics.getNode()).toEqual(givenEntity("added-" + i));
+			expect(metrics.isExecuted()).toBeTruthy();
+			expect(metrics.getStartNanos() >= processingResult.getNodeMetrics(givenEntity("added-" + (i - 1))).get().getEndNanos())
+					.toBeTruthy();
+		}
+		expect(processingResult.getCriticalPath().size()).toEqual(600);
+	}
+
+	@Test(description = "should reject circular dependency added while processing")
+	public void testDynamicCircularDependency() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+
+		List<Exception> errors = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> processingResult = graph.processDynamic(
+				dynamicProcessingCallback((entity, expansion) -> {
+					if (!entity.getName().equals("one")) return;
+					try {
+						expansion.addDependency(givenEntity("three"), givenEntity("two"));
+						expansion.addDependency(givenEntity("two"), givenEntity("three"));
+					} catch (CircularDependencyException e) {
+						errors.add(e);
+					}
+				}));
+
+		expect(errors.size()).toEqual(1);
+		expect(processingResult.isSuccessful()).toBeTruthy();
+		expect(graph.find(givenEntity("three")).get().dependsOn(givenEntity("one"))).toBeTruthy();
+	}
+
+	@Test(description = "should apply processing options to nodes added while processing")
+	public void testDynamicProcessingOptions() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.add(givenEntity("root"));
+
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		AtomicInteger attempts = new AtomicInteger();
+		List<String> result = synchronizedList(newArrayList());
+		ExecutorService executor = boundedPool(4);
+		DependencyGraphProcessingResult<Entity> processingResult = graph.processDynamic(
+				dynamicProcessingCallback((entity, expansion) -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						if (entity.getName().equals("root")) {
+							for (int i = 0; i < 10; i++) expansion.addDependency(givenEntity("merge"), givenEntity("child-" + i));
+						}
+						if (entity.getName().equals("child-3") && attempts.incrementAndGet() < 2) throw new RuntimeException();
+						sleepUninterruptibly(5, MILLISECONDS);
+						result.add(entity.getName());
+					} finally {
+						running.decrementAndGet();
+					}
+				}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+						.executor(executor)
+						.maxConcurrency(2)
+						.retry(2, 1, MILLISECONDS)
+						.build());
+		executor.shutdown();
+
+		expect(processingResult.isSuccessful()).toBeTruthy();
+		expect(processingResult.getState(givenEntity("merge")).get()).toEqual(FINISHED);
+		expect(maxRunning.get() <= 2).toBeTruthy();
+		expect(attempts.get()).toEqual(2);
+		expect(result.size()).toEqual(12);
+		expect(result.get(11)).toEqual("merge");
+	}
+
+	@Test(description = "should fail nodes added with a dependency that already failed", timeOut = 10000)
+	public void testDynamicDependencyOnFailed() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.add(givenEntity("failing"));
+		graph.add(givenEntity("expanding"));
+
+		CountDownLatch failed = new CountDownLatch(1);
+		List<String> result = synchronizedList(newArrayList());
+		ExecutorService executor = boundedPool(2);
+		DependencyGraphProcessingResult<Entity> processingResult = graph.processDynamic(
+				dynamicProcessingCallback((entity, expansion) -> {
+					if (entity.getName().equals("failing")) throw new RuntimeException();
+					if (entity.getName().equals("expanding")) {
+						awaitUninterruptibly(failed);
+						expansion.addDependency(givenEntity("dependent"), givenEntity("failing"));
+					}
+					result.add(entity.getName());
+				}, stateChange -> {
+					if (stateChange.getState() == FAILED) failed.countDown();
+				}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+						.executor(executor)
+						.build());
+		executor.shutdown();
+
+		expect(result).toEqual(newArrayList("expanding"));
+		expect(processingResult.getState(givenEntity("failing")).get()).toEqual(FAILED);
+		expect(processingResult.getState(givenEntity("dependent")).get()).toEqual(FAILED);
+		expect(processingResult.getState(givenEntity("expanding")).get()).toEqual(FINISHED);
+	}
+
+	@Test(description = "should respect concurrency and resource class limits")
+	public void testResourceLimits() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int i = 0; i < 12; i++) graph.add(givenEntity((i % 2 == 0 ? "db-" : "cpu-") + i));
+
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger runningDb = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		AtomicInteger maxRunningDb = new AtomicInteger();
+		ExecutorService executor = boundedPool(8);
+		DependencyGraphProcessingResult<Entity> result = graph.process(processingCallback(entity -> {
+			boolean db = entity.getName().startsWith("db-");
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			if (db) maxRunningDb.accumulateAndGet(runningDb.incrementAndGet(), Math::max);
+			sleepUninterruptibly(20, MILLISECONDS);
+			if (db) runningDb.decrementAndGet();
+			running.decrementAndGet();
+		}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+				.executor(executor)
+				.maxConcurrency(3)
+				.resourceClassifier(entity -> entity.getName().startsWith("db-") ? "db" : null)
+				.resourceLimit("db", 2)
+				.build());
+		executor.shutdown();
+
+		expect(result.isSuccessful()).toBeTruthy();
+		expect(maxRunning.get() <= 3).toBeTruthy();
+		expect(maxRunningDb.get() <= 2).toBeTruthy();
+	}
+
+	@Test(description = "should cancel pending and running nodes on first failure", timeOut = 10000)
+	public void testFailFast() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("slow-dependent"), givenEntity("slow"));
+		graph.add(givenEntity("failing"));
+
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> result = synchronizedList(newArrayList());
+		ExecutorService executor = boundedPool(4);
+		try {
+			DependencyGraphProcessingResult<Entity> processingResult = graph.process(processingCallback(entity -> {
+				if (entity.getName().equals("failing")) throw new RuntimeException();
+				if (entity.getName().equals("slow")) awaitInterruptibly(release);
+				result.add(entity.getName());
+			}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+					.executor(executor)
+					.failurePolicy(DependencyGraphFailurePolicy.FAIL_FAST)
+					.build());
+
+			expect(result).toBeEmpty();
+			expect(processingResult.getState(givenEntity("failing")).get()).toEqual(FAILED);
+			expect(processingResult.getState(givenEntity("slow")).get()).toEqual(CANCELLED);
+			expect(processingResult.getState(givenEntity("slow-dependent")).get()).toEqual(CANCELLED);
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test(description = "should stop processing once the run is aborted", timeOut = 10000)
+	public void testAbort() throws InterruptedException {
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int i = 0; i < 20; i++) graph.add(givenEntity("node-" + i));
+
+		AtomicBoolean aborted = new AtomicBoolean();
+		List<String> processedAfterAbort = synchronizedList(newArrayList());
+		ExecutorService executor = boundedPool(1);
+		CompletableFuture<DependencyGraphProcessingResult<Entity>> completion = graph.freeze().processAsync(
+				asyncProcessingCallback(entity -> {
+					if (aborted.get()) processedAfterAbort.add(entity.getName());
+					return CompletableFuture.completedFuture(null);
+				}, stateChange -> {
+					if (stateChange.getNode().getName().equals("node-10") && stateChange.getState() == RUNNING) {
+						aborted.set(true);
+						throw new IllegalStateException();
+					}
+				}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+						.executor(executor)
+						.build());
+		executor.shutdown();
+		executor.awaitTermination(5, SECONDS);
+
+		expect(completion.isCompletedExceptionally()).toBeTruthy();
+		expect(aborted.get()).toBeTruthy();
+		expect(processedAfterAbort).toBeEmpty();
+	}
+
+	@Test(description = "should retry failed nodes")
+	public void testRetry() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("dependent"), givenEntity("flaky"));
+
+		AtomicInteger attempts = new AtomicInteger();
+		List<String> result = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> processingResult = graph.process(processingCallback(entity -> {
+			if (entity.getName().equals("flaky") && attempts.incrementAndGet() < 3) throw new RuntimeException();
+			result.add(entity.getName());
+		}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+				.retry(3, 1, MILLISECONDS)
+				.build());
+
+		expect(processingResult.isSuccessful()).toBeTruthy();
+		expect(attempts.get()).toEqual(3);
+		expect(result).toEqual(newArrayList("flaky", "dependent"));
+	}
+
+	@Test(description = "should time out hung nodes and their dependents", timeOut = 10000)
+	public void testNodeTimeout() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("dependent"), givenEntity("hung"));
+		graph.add(givenEntity("healthy"));
+
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> result = synchronizedList(newArrayList());
+		ExecutorService executor = boundedPool(2);
+		try {
+			DependencyGraphProcessingResult<Entity> processingResult = graph.process(processingCallback(entity -> {
+				if (entity.getName().equals("hung")) awaitUninterruptibly(release);
+				result.add(entity.getName());
+			}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+					.executor(executor)
+					.nodeTimeout(200, MILLISECONDS)
+					.build());
+
+			expect(result).toEqual(newArrayList("healthy"));
+			expect(processingResult.getState(givenEntity("hung")).get()).toEqual(TIMED_OUT);
+			expect(processingResult.getState(givenEntity("dependent")).get()).toEqual(TIMED_OUT);
+			expect(processingResult.getState(givenEntity("healthy")).get()).toEqual(FINISHED);
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test(description = "should abort run when timing out a node fails", timeOut = 10000)
+	public void testNodeTimeoutFailure() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("dependent"), givenEntity("hung"));
+
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = boundedPool(2);
+		try {
+			graph.process(processingCallback(entity -> awaitUninterruptibly(release), stateChange -> {
+				if (stateChange.getState() == TIMED_OUT) throw new IllegalStateException();
+			}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+					.executor(executor)
+					.nodeTimeout(100, MILLISECONDS)
+					.build());
+			throw new AssertionError("failing timeout was not reported");
+		} catch (CompletionException e) {
+			expect(e.getCause() instanceof IllegalStateException).toBeTruthy();
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test(description = "should time out unfinished nodes after deadline", timeOut = 10000)
+	public void testDeadline() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("two"), givenEntity("one"));
+		graph.addDependency(givenEntity("three"), givenEntity("two"));
+
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = boundedPool(2);
+		try {
+			DependencyGraphProcessingResult<Entity> processingResult = graph.process(processingCallback(entity -> {
+				if (entity.getName().equals("two")) awaitUninterruptibly(release);
+			}), DependencyGraphProcessingOptions.<Entity>processingOptions()
+					.executor(executor)
+					.deadline(200, MILLISECONDS)
+					.build());
+
+			expect(processingResult.getState(givenEntity("one")).get()).toEqual(FINISHED);
+			expect(processingResult.getState(givenEntity("two")).get()).toEqual(TIMED_OUT);
+			expect(processingResult.getState(givenEntity("three")).get()).toEqual(TIMED_OUT);
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test(description = "should run ready nodes in batches")
+	public void testBatching() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int i = 0; i < 100; i++) graph.addDependency(givenEntity("dependent-" + i), givenEntity("node-" + i));
+
+		AtomicInteger tasks = new AtomicInteger();
+		ExecutorService executor = boundedPool(4);
+		List<String> result = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> processingResult = graph.process(
+				processingCallback(entity -> result.add(entity.getName())),
+				DependencyGraphProcessingOptions.<Entity>processingOptions()
+						.executor(task -> {
+							tasks.incrementAndGet();
+							executor.execute(task);
+						})
+						.batching(32)
+						.build());
+		executor.shutdown();
+
+		expect(processingResult.isSuccessful()).toBeTruthy();
+		expect(result.size()).toEqual(200);
+		expect(tasks.get() < 200).toBeTruthy();
+		for (int i = 0; i < 100; i++) {
+			expect(result.indexOf("node-" + i) < result.indexOf("dependent-" + i)).toBeTruthy();
+		}
+	}
+
+	@Test(description = "should pass independent ready nodes to batch callback together")
+	public void testBatchCallback() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int i = 0; i < 20; i++) graph.addDependency(givenEntity("dependent-" + i), givenEntity("node-" + i));
+		graph.addDependency(givenEntity("failing-dependent"), givenEntity("failing"));
+
+		List<List<Entity>> batches = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> processingResult = graph.processBatches(batchProcessingCallback(nodes -> {
+			batches.add(newArrayList(nodes));
+			if (nodes.contains(givenEntity("failing"))) throw new RuntimeException();
+		}));
+
+		expect(batches.stream().anyMatch(batch -> batch.size() > 1)).toBeTruthy();
+		expect(processingResult.getState(givenEntity("failing-dependent")).get()).toEqual(FAILED);
+		for (List<Entity> batch : batches) {
+			for (int i = 0; i < 20; i++) {
+				expect(batch.contains(givenEntity("node-" + i)) && batch.contains(givenEntity("dependent-" + i))).toBeFalsy();
+			}
+		}
+	}
+
+	@Test(description = "should continue chain on finishing worker")
+	public void testChainContinuesInline() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int i = 1; i < 50; i++) graph.addDependency(givenEntity("node-" + i), givenEntity("node-" + (i - 1)));
+		for (int i = 0; i < 4; i++) graph.addDependency(givenEntity("fan-" + i), givenEntity("node-49"));
+
+		ExecutorService executor = boundedPool(4);
+		DependencyGraphProcessingResult<Entity> result = graph.process(processingCallback(entity -> {}), executor);
+		executor.shutdown();
+
+		String chainWorker = result.getNodeMetrics(givenEntity("node-0")).get().getWorker();
+		for (int i = 1; i < 50; i++) {
+			expect(result.getNodeMetrics(givenEntity("node-" + i)).get().getWorker()).toEqual(chainWorker);
+		}
+		expect(result.isSuccessful()).toBeTruthy();
+	}
+
+	@Test(description = "should complete graph processed from within a node callback", timeOut = 10000)
+	public void testNestedProcessing() {
+		DependencyGraph<Entity> inner = emptyGraph();
+		inner.addDependency(givenEntity("inner-two"), givenEntity("inner-one"));
+		inner.addDependency(givenEntity("inner-three"), givenEntity("inner-two"));
+		DependencyGraph<Entity> outer = emptyGraph();
+		outer.addDependency(givenEntity("outer-two"), givenEntity("outer-one"));
+
+		ExecutorService executor = boundedPool(2);
+		List<String> result = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> processingResult = outer.process(processingCallback(entity -> {
+			result.add(entity.getName());
+			if (entity.getName().equals("outer-one")) {
+				expect(inner.process(processingCallback(innerEntity -> result.add(innerEntity.getName())), executor)
+						.isSuccessful()).toBeTruthy();
+			}
+		}), executor);
+		executor.shutdown();
+
+		expect(processingResult.isSuccessful()).toBeTruthy();
+		expect(result).toEqual(newArrayList("outer-one", "inner-one", "inner-two", "inner-three", "outer-two"));
+	}
+
 	@Test(description = "should fail dependents")
 	public void testFailDependents() {
 		DependencyGraph<Entity> graph = emptyGraph();
@@ -124,6 +860,17 @@ public class DependencyGraphTest {
 		expect(result.get(1)).toEqual("three");
 	}
 
+	@Test(description = "should fail dependents of long chain")
+	public void testFailLongChain() {
+		DependencyGraphBuilder<Entity> builder = DependencyGraph.builder();
+		for (int i = 1; i < 20000; i++) builder.addDependency(givenEntity("node-" + i), givenEntity("node-" + (i - 1)));
+
+		DependencyGraphProcessingResult<Entity> result = builder.build().process(givenFailingCallback("node-0", entity -> {}));
+
+		expect(result.getState(givenEntity("node-0")).get()).toEqual(FAILED);
+		expect(result.getState(givenEntity("node-19999")).get()).toEqual(FAILED);
+	}
+
 	@Test(description = "should trigger callbacks in correct order")
 	public void testCallbacks() {
 		DependencyGraph<Entity> graph = emptyGraph();
@@ -184,4 +931,12 @@ public class DependencyGraphTest {
 		}, stateConsumer);
 	}
 
+	private void awaitInterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 }
@@ -0,0 +1,153 @@
+package org.segg3r.graph;
+
+import by.segg3r.testng.util.spring.SpringContextListener;
+import org.segg3r.graph.execution.value.DependencyGraphValueCache;
+import org.segg3r.graph.execution.value.DependencyGraphValueCallback;
+import org.segg3r.graph.execution.value.DependencyGraphValueResult;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static by.segg3r.expectunit.Expect.expect;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.synchronizedList;
+import static org.segg3r.graph.DependencyGraph.emptyGraph;
+import static org.segg3r.graph.execution.value.DependencyGraphValueCache.inMemoryCache;
+import static org.segg3r.graph.execution.value.DependencyGraphValueCache.noCache;
+import static org.segg3r.graph.execution.value.DependencyGraphValueCache.onDiskCache;
+import static org.segg3r.graph.execution.value.DependencyGraphValueCallback.valueCallback;
+
+@Listeners(SpringContextListener.class)
+public class DependencyGraphValueTest {
+
+	@Test(description = "should compute node values from dependency values")
+	public void testComputeValues() {
+		DependencyGraphValueResult<Entity, Integer> result = givenDiamond().computeValues(givenSummingCallback(newArrayList()), noCache());
+
+		expect(result.isSuccessful()).toBeTruthy();
+		expect(result.getValue(givenEntity("top")).get()).toEqual(1);
+		expect(result.getValue(givenEntity("left")).get()).toEqual(2);
+		expect(result.getValue(givenEntity("bottom")).get()).toEqual(5);
+	}
+
+	@Test(description = "should reuse cached values of nodes with unchanged inputs")
+	public void testInMemoryCache() {
+		DependencyGraphValueCache<Entity, Integer> cache = inMemoryCache(16);
+		givenDiamond().computeValues(givenSummingCallback(newArrayList()), cache);
+
+		DependencyGraph<Entity> graph = givenDiamond();
+		graph.addDependency(givenEntity("right"), givenEntity("extra"));
+		List<String> computed = synchronizedList(newArrayList());
+		DependencyGraphValueResult<Entity, Integer> result = graph.computeValues(givenSummingCallback(computed), cache);
+
+		expect(computed).toContainOnly("extra", "right", "bottom");
+		expect(result.isCached(givenEntity("left"))).toBeTruthy();
+		expect(result.getValue(givenEntity("bottom")).get()).toEqual(6);
+	}
+
+	@Test(description = "should reuse values stored on disk and evict excess entries")
+	public void testOnDiskCache() throws Exception {
+		Path directory = Files.createTempDirectory("dependency-graph-values");
+		givenDiamond().computeValues(givenSummingCallback(newArrayList()), onDiskCache(directory, 4));
+
+		List<String> computed = synchronizedList(newArrayList());
+		DependencyGraphValueResult<Entity, Integer> result =
+				givenDiamond().computeValues(givenSummingCallback(computed), onDiskCache(directory, 4));
+		onDiskCache(directory, 2);
+
+		expect(computed).toBeEmpty();
+		expect(result.getValue(givenEntity("bottom")).get()).toEqual(5);
+		try (Stream<Path> entries = Files.list(directory)) {
+			expect(entries.count()).toEqual(2L);
+		}
+	}
+
+	@Test(description = "should reuse values stored on disk by a run with different hash codes")
+	public void testOnDiskCacheStableKeys() throws Exception {
+		Path directory = Files.createTempDirectory("dependency-graph-values");
+		DependencyGraphValueCallback<Entity, SaltedValue> callback = valueCallback((entity, dependencyValues) ->
+				new SaltedValue(entity.getName() + dependencyValues.size()));
+		SaltedValue.salt = 1;
+		givenDiamond().computeValues(callback, onDiskCache(directory, 16));
+
+		SaltedValue.salt = 2;
+		DependencyGraphValueResult<Entity, SaltedValue> result = givenDiamond().computeValues(callback, onDiskCache(directory, 16));
+
+		expect(result.isCached(givenEntity("bottom"))).toBeTruthy();
+		expect(result.isCached(givenEntity("left"))).toBeTruthy();
+	}
+
+	@Test(description = "should not serve cached value of inputs with colliding hash codes")
+	public void testCacheHashCollision() throws Exception {
+		expect("Aa".hashCode()).toEqual("BB".hashCode());
+
+		verifyRecomputedOnHashCollision(inMemoryCache(16));
+		verifyRecomputedOnHashCollision(onDiskCache(Files.createTempDirectory("dependency-graph-values"), 16));
+	}
+
+	private void verifyRecomputedOnHashCollision(DependencyGraphValueCache<String, String> cache) {
+		DependencyGraphValueCallback<String, String> callback = valueCallback((node, dependencyValues) ->
+				dependencyValues.isEmpty() ? node : node + "(" + String.join(",", dependencyValues.values()) + ")");
+		DependencyGraph<String> first = emptyGraph();
+		first.addDependency("output", "Aa");
+		DependencyGraph<String> second = emptyGraph();
+		second.addDependency("output", "BB");
+
+		first.computeValues(callback, cache);
+		DependencyGraphValueResult<String, String> result = second.computeValues(callback, cache);
+
+		expect(result.getValue("output").get()).toEqual("output(BB)");
+		expect(result.isCached("output")).toBeFalsy();
+	}
+
+	private DependencyGraphValueCallback<Entity, Integer> givenSummingCallback(List<String> computed) {
+		return valueCallback((entity, dependencyValues) -> {
+			computed.add(entity.getName());
+			return dependencyValues.values().stream().mapToInt(Integer::intValue).sum() + 1;
+		});
+	}
+
+	private DependencyGraph<Entity> givenDiamond() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("left"), givenEntity("top"));
+		graph.addDependency(givenEntity("right"), givenEntity("top"));
+		graph.addDependency(givenEntity("bottom"), givenEntity("left"));
+		graph.addDependency(givenEntity("bottom"), givenEntity("right"));
+		return graph;
+	}
+
+	private Entity givenEntity(String name) {
+		return new Entity(name);
+	}
+
+	// Hash codes of many values, e.g. enums, change between JVM runs, the salt stands in for such a run.
+	private static final class SaltedValue implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private static volatile int salt;
+
+		private final String name;
+
+		private SaltedValue(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof SaltedValue && name.equals(((SaltedValue) o).name);
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode() ^ salt;
+		}
+
+	}
+
+}
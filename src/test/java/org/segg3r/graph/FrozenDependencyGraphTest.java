@@ -0,0 +1,252 @@
+package org.segg3r.graph;
+
+import by.segg3r.testng.util.spring.SpringContextListener;
+import org.segg3r.graph.exception.DependencyGraphFormatException;
+import org.segg3r.graph.execution.DependencyGraphProcessingResult;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static by.segg3r.expectunit.Expect.expect;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Collections.synchronizedList;
+import static org.segg3r.graph.DependencyGraph.emptyGraph;
+import static org.segg3r.graph.DependencyGraphEntityCodec.stringCodec;
+import static org.segg3r.graph.execution.DependencyGraphProcessingCallback.processingCallback;
+
+@Listeners(SpringContextListener.class)
+public class FrozenDependencyGraphTest {
+
+	@Test(description = "should assign node ids in topological order")
+	public void testTopologicalIds() {
+		FrozenDependencyGraph<Entity> graph = givenDiamond().freeze();
+
+		expect(graph.size()).toEqual(5);
+		expect(graph.edgeCount()).toEqual(4);
+		for (int node = 0; node < graph.size(); node++) {
+			for (int i = 0; i < graph.getDirectDependencyCount(node); i++) {
+				expect(graph.getDirectDependency(node, i) < node).toBeTruthy();
+			}
+		}
+	}
+
+	@Test(description = "should write and load binary form")
+	public void testWriteAndLoad() throws Exception {
+		Path file = Files.createTempDirectory("dependency-graph").resolve("graph.bin");
+		DependencyGraph<String> graph = emptyGraph();
+		graph.addDependency("left", "top");
+		graph.addDependency("right", "top");
+		graph.addDependency("bottom", "left");
+		graph.addDependency("bottom", "right");
+		graph.freeze().writeTo(file, stringCodec());
+
+		FrozenDependencyGraph<String> loaded = FrozenDependencyGraph.load(file, stringCodec());
+
+		expect(loaded.size()).toEqual(4);
+		expect(loaded.edgeCount()).toEqual(4);
+		expect(loaded.directlyDependsOn("left", "top")).toBeTruthy();
+		expect(loaded.getDependencies("bottom")).toContainOnly("top", "left", "right");
+		expect(loaded.thaw().find("bottom").get().dependsOn("top")).toBeTruthy();
+	}
+
+	@Test(description = "should reject file of unknown format", expectedExceptions = DependencyGraphFormatException.class)
+	public void testLoadUnknownFormat() throws Exception {
+		Path file = Files.createTempFile("dependency-graph", ".bin");
+		Files.write(file, new byte[] { 'n', 'o', 't', ' ', 'a', ' ', 'g', 'r', 'a', 'p', 'h', '!', 0, 0, 0, 0 });
+
+		FrozenDependencyGraph.load(file, stringCodec());
+	}
+
+	@Test(description = "should reject file with corrupted body")
+	public void testLoadCorruptedBody() throws Exception {
+		Path file = Files.createTempDirectory("dependency-graph").resolve("graph.bin");
+		DependencyGraph<String> graph = emptyGraph();
+		graph.addDependency("bottom", "top");
+		graph.freeze().writeTo(file, stringCodec());
+		byte[] original = Files.readAllBytes(file);
+
+		// header of 4 ints, then dependency offsets [3] and the single dependency
+		int[][] corruptions = { { 4, Integer.MAX_VALUE }, { 3, Integer.MAX_VALUE }, { 5, 1 }, { 7, 5 }, { 11, 2 }, { 14, 100 } };
+		for (int[] corruption : corruptions) {
+			byte[] corrupted = original.clone();
+			ByteBuffer.wrap(corrupted).putInt(corruption[0] * Integer.BYTES, corruption[1]);
+			Files.write(file, corrupted);
+
+			try {
+				FrozenDependencyGraph.load(file, stringCodec());
+				throw new AssertionError("corruption of int " + corruption[0] + " was not detected");
+			} catch (DependencyGraphFormatException e) {
+				expect(e.getMessage().contains(file.toString())).toBeTruthy();
+			}
+		}
+	}
+
+	@Test(description = "should reject file whose dependents are not the transpose of its dependencies")
+	public void testLoadSwappedDependents() throws Exception {
+		Path file = Files.createTempDirectory("dependency-graph").resolve("graph.bin");
+		DependencyGraph<String> graph = emptyGraph();
+		graph.addDependency("first-bottom", "first-top");
+		graph.addDependency("second-bottom", "second-top");
+		graph.freeze().writeTo(file, stringCodec());
+		byte[] corrupted = Files.readAllBytes(file);
+
+		// header of 4 ints, then dependency offsets, dependencies and dependent offsets before the two dependents
+		IntBuffer ints = ByteBuffer.wrap(corrupted).asIntBuffer();
+		int dependents = 4 + 5 + 2 + 5;
+		int first = ints.get(dependents);
+		ints.put(dependents, ints.get(dependents + 1)).put(dependents + 1, first);
+		Files.write(file, corrupted);
+
+		try {
+			FrozenDependencyGraph.load(file, stringCodec());
+			throw new AssertionError("swapped dependents were not detected");
+		} catch (DependencyGraphFormatException e) {
+			expect(e.getMessage().contains("do not match")).toBeTruthy();
+		}
+	}
+
+	@Test(description = "should answer traversal queries on frozen form")
+	public void testTraversal() {
+		FrozenDependencyGraph<Entity> graph = givenDiamond().freeze();
+
+		expect(graph.directlyDependsOn(givenEntity("left"), givenEntity("top"))).toBeTruthy();
+		expect(graph.directlyDependsOn(givenEntity("bottom"), givenEntity("top"))).toBeFalsy();
+		expect(graph.dependsOn(givenEntity("bottom"), givenEntity("top"))).toBeTruthy();
+		expect(graph.dependsOn(givenEntity("top"), givenEntity("bottom"))).toBeFalsy();
+		expect(graph.getDependencies(givenEntity("bottom"))).toContainOnly(
+				givenEntity("top"), givenEntity("left"), givenEntity("right"));
+		expect(graph.getDependents(givenEntity("left"))).toContainOnly(givenEntity("bottom"));
+		expect(graph.getDependents(givenEntity("alone"))).toBeEmpty();
+		expect(graph.indexOf(givenEntity("missing"))).toEqual(-1);
+	}
+
+	@Test(description = "should answer reachability queries as the full closure on random graph")
+	public void testRandomReachability() {
+		int size = 120;
+		Random random = new Random(42);
+		List<int[]> edges = newArrayList();
+		boolean[][] closure = new boolean[size][size];
+		for (int dependent = 0; dependent < size; dependent++) {
+			for (int dependency = 0; dependency < dependent; dependency++) {
+				if (random.nextInt(30) != 0) continue;
+
+				edges.add(new int[] {dependent, dependency});
+				closure[dependent][dependency] = true;
+				for (int i = 0; i < dependency; i++) closure[dependent][i] |= closure[dependency][i];
+			}
+		}
+
+		DependencyGraph<Entity> graph = emptyGraph();
+		for (int node = 0; node < size; node++) graph.add(givenEntity("node" + node));
+		Collections.shuffle(edges, random);
+		for (int[] edge : edges) graph.addDependency(givenEntity("node" + edge[0]), givenEntity("node" + edge[1]));
+		FrozenDependencyGraph<Entity> frozen = graph.freeze();
+
+		for (int dependent = 0; dependent < size; dependent++) {
+			DependencyGraphElement<Entity> dependentElement = graph.find(givenEntity("node" + dependent)).get();
+			for (int dependency = 0; dependency < size; dependency++) {
+				DependencyGraphElement<Entity> dependencyElement = graph.find(givenEntity("node" + dependency)).get();
+				boolean expected = closure[dependent][dependency];
+
+				expect(frozen.dependsOn(givenEntity("node" + dependent), givenEntity("node" + dependency))).toEqual(expected);
+				expect(dependentElement.dependsOn(dependencyElement)).toEqual(expected);
+				expect(dependencyElement.isDependencyOf(dependentElement)).toEqual(expected);
+				expect(dependentElement.getDependencies().contains(dependencyElement)).toEqual(expected);
+			}
+		}
+	}
+
+	@Test(description = "should process frozen graph")
+	public void testProcess() {
+		FrozenDependencyGraph<Entity> graph = givenDiamond().freeze();
+
+		List<String> result = synchronizedList(newArrayList());
+		graph.process(processingCallback(entity -> result.add(entity.getName())));
+
+		expect(result.size()).toEqual(5);
+		expect(result.indexOf("top") < result.indexOf("left")).toBeTruthy();
+		expect(result.indexOf("right") < result.indexOf("bottom")).toBeTruthy();
+		expect(result.indexOf("left") < result.indexOf("bottom")).toBeTruthy();
+	}
+
+	@Test(description = "should process only targets and their dependencies")
+	public void testProcessTargets() {
+		DependencyGraph<Entity> graph = givenDiamond();
+		graph.addDependency(givenEntity("after-bottom"), givenEntity("bottom"));
+
+		List<String> result = synchronizedList(newArrayList());
+		DependencyGraphProcessingResult<Entity> processingResult = graph.process(
+				newHashSet(givenEntity("left"), givenEntity("alone")),
+				processingCallback(entity -> result.add(entity.getName())));
+
+		expect(result).toContainOnly("top", "left", "alone");
+		expect(result.indexOf("top") < result.indexOf("left")).toBeTruthy();
+		expect(processingResult.isSuccessful()).toBeTruthy();
+		expect(processingResult.getNodeMetrics(givenEntity("bottom")).isPresent()).toBeFalsy();
+
+		FrozenDependencyGraph<Entity> upstream = graph.freeze().upstreamOf(newHashSet(givenEntity("bottom")));
+		expect(upstream.size()).toEqual(4);
+		expect(upstream.edgeCount()).toEqual(4);
+		expect(upstream.getDependents(givenEntity("top"))).toContainOnly(
+				givenEntity("left"), givenEntity("right"), givenEntity("bottom"));
+	}
+
+	@Test(description = "should process empty graph")
+	public void testProcessEmpty() {
+		DependencyGraph<Entity> graph = emptyGraph();
+
+		graph.freeze().process(processingCallback(entity -> {
+			throw new IllegalStateException();
+		}));
+	}
+
+	@Test(description = "should remove transitive edges of wide and deep graphs")
+	public void testTransitiveReduction() {
+		DependencyGraphBuilder<Entity> wide = DependencyGraph.builder();
+		for (int i = 0; i < 200; i++) {
+			wide.addDependency(givenEntity("middle" + i), givenEntity("root"));
+			wide.addDependency(givenEntity("sink"), givenEntity("middle" + i));
+		}
+		wide.addDependency(givenEntity("sink"), givenEntity("root"));
+
+		DependencyGraphBuilder<Entity> deep = DependencyGraph.builder();
+		for (int i = 0; i < 100; i++) {
+			for (int j = i + 1; j < 100; j++) {
+				deep.addDependency(givenEntity("node" + j), givenEntity("node" + i));
+			}
+		}
+
+		FrozenDependencyGraph<Entity> reducedWide = wide.build().freeze().transitiveReduction();
+		FrozenDependencyGraph<Entity> reducedDeep = deep.build().freeze().transitiveReduction();
+
+		expect(reducedWide.edgeCount()).toEqual(400);
+		expect(reducedWide.directlyDependsOn(givenEntity("sink"), givenEntity("root"))).toBeFalsy();
+		expect(reducedDeep.edgeCount()).toEqual(99);
+		expect(reducedDeep.directlyDependsOn(givenEntity("node50"), givenEntity("node49"))).toBeTruthy();
+		expect(reducedDeep.getDirectDependencyCount(reducedDeep.indexOf(givenEntity("node50")))).toEqual(1);
+	}
+
+	private DependencyGraph<Entity> givenDiamond() {
+		DependencyGraph<Entity> graph = emptyGraph();
+		graph.addDependency(givenEntity("left"), givenEntity("top"));
+		graph.addDependency(givenEntity("right"), givenEntity("top"));
+		graph.addDependency(givenEntity("bottom"), givenEntity("left"));
+		graph.addDependency(givenEntity("bottom"), givenEntity("right"));
+		graph.add(givenEntity("alone"));
+
+		return graph;
+	}
+
+	private Entity givenEntity(String name) {
+		return new Entity(name);
+	}
+
+}